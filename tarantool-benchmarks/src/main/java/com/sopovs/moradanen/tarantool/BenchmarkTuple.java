@@ -0,0 +1,15 @@
+package com.sopovs.moradanen.tarantool;
+
+@TarantoolTuple
+public class BenchmarkTuple {
+    @Field(0)
+    long id;
+    @Field(1)
+    int count;
+    @Field(2)
+    String name;
+    @Field(3)
+    double rating;
+    @Field(4)
+    boolean active;
+}
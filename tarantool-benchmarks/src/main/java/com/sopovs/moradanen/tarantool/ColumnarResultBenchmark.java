@@ -0,0 +1,90 @@
+package com.sopovs.moradanen.tarantool;
+
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Lives in the driver package to create ArrayResult without the server.
+// Sum of the long field and of string lengths over all rows - mapped to objects per row and decoded into columns.
+
+// -prof gc
+
+//Benchmark                                            (size)  Mode  Cnt        Score        Error  Units
+//ColumnarResultBenchmark.rows                           1000  avgt    3       55.945 ±    153.020  us/op
+//ColumnarResultBenchmark.rows:·gc.alloc.rate.norm       1000  avgt    3    92661.164 ±     48.725   B/op
+//ColumnarResultBenchmark.columns                        1000  avgt    3       55.862 ±    215.407  us/op
+//ColumnarResultBenchmark.columns:·gc.alloc.rate.norm    1000  avgt    3    28796.602 ±     20.305   B/op
+//
+//ColumnarResultBenchmark.rows                         100000  avgt    3    11732.881 ±  21152.386  us/op
+//ColumnarResultBenchmark.rows:·gc.alloc.rate.norm     100000  avgt    3  9930556.799 ±   2122.421   B/op
+//ColumnarResultBenchmark.columns                      100000  avgt    3     4697.413 ±   2674.124  us/op
+//ColumnarResultBenchmark.columns:·gc.alloc.rate.norm  100000  avgt    3  2803902.183 ±   1346.004   B/op
+
+@BenchmarkMode(Mode.AverageTime)
+@Fork(3)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ColumnarResultBenchmark {
+    private static final TarantoolTemplate.ResultRowMapper<BenchmarkTuple> MAPPER = result -> {
+        BenchmarkTuple tuple = new BenchmarkTuple();
+        tuple.id = result.getLong(0);
+        tuple.name = result.getString(2);
+        return tuple;
+    };
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private byte[] frame;
+
+    @Setup
+    public void setup() throws IOException {
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packArrayHeader(size);
+            for (int i = 0; i < size; i++) {
+                packer.packArrayHeader(5);
+                packer.packLong(i);
+                packer.packInt(i % 100);
+                packer.packString("Name" + i);
+                packer.packDouble(i / 3.0);
+                packer.packBoolean(i % 2 == 0);
+            }
+            frame = packer.toByteArray();
+        }
+    }
+
+    private Result result() {
+        MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(frame);
+        return new ArrayResult(unpacker, frame, frame.length, false);
+    }
+
+    @Benchmark
+    public long rows() {
+        List<BenchmarkTuple> tuples = new TarantoolTemplate.RowMapperResultExtractor<>(MAPPER).extract(result());
+        long sum = 0;
+        for (BenchmarkTuple tuple : tuples) {
+            sum += tuple.id + tuple.name.length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long columns() {
+        ColumnarResult columnar = new ColumnarResult(result(),
+                ColumnarResult.Column.longs(0), ColumnarResult.Column.strings(2));
+        long[] ids = columnar.getLongs(0);
+        int[] offsets = columnar.getStringOffsets(1);
+        long sum = 0;
+        for (int i = 0; i < columnar.getSize(); i++) {
+            sum += ids[i] + offsets[i + 1] - offsets[i];
+        }
+        return sum;
+    }
+}
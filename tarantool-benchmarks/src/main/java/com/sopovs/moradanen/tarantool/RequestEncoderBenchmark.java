@@ -0,0 +1,136 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Util;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.buffer.MessageBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// copying is the former encoding - arguments packed separately and copied into the request packer,
+// then the size computed from the buffer list and every buffer written out.
+// backpatched packs everything once into a single array and patches the size prefixes in place.
+
+//Benchmark                            (size)  Mode  Cnt      Score       Error  Units
+//RequestEncoderBenchmark.copying          10  avgt    3    305.647 ±   351.634  ns/op
+//RequestEncoderBenchmark.backpatched      10  avgt    3    167.970 ±    96.444  ns/op
+//
+//RequestEncoderBenchmark.copying        1000  avgt    3    847.371 ±  2520.824  ns/op
+//RequestEncoderBenchmark.backpatched    1000  avgt    3    194.291 ±    41.527  ns/op
+//
+//RequestEncoderBenchmark.copying      100000  avgt    3  15197.448 ± 41170.802  ns/op
+//RequestEncoderBenchmark.backpatched  100000  avgt    3   3451.058 ±  1023.951  ns/op
+
+@BenchmarkMode(Mode.AverageTime)
+@Fork(3)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RequestEncoderBenchmark {
+
+    private final MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+    private final MessageBufferPacker queryPacker = MessagePack.newDefaultBufferPacker();
+    private final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new NullOutputStream()));
+    private final RequestEncoder encoder = new RequestEncoder();
+    private final RequestOutput output = new StreamOutput(out);
+    private int sync = 0;
+    private byte[] payload;
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    @Setup
+    public void setup() {
+        payload = new byte[size];
+        new Random(42L).nextBytes(payload);
+    }
+
+    @Benchmark
+    public void copying() throws IOException {
+        packer.packMapHeader(2);
+        packer.packInt(Util.KEY_CODE);
+        packer.packInt(Util.CODE_INSERT);
+        packer.packInt(Util.KEY_SYNC);
+        packer.packInt(++sync);
+        packer.packMapHeader(2);
+        packer.packInt(Util.KEY_SPACE);
+        packer.packInt(512);
+
+        queryPacker.packInt(1);
+        queryPacker.packBinaryHeader(payload.length);
+        queryPacker.writePayload(payload);
+
+        packer.packInt(Util.KEY_TUPLE);
+        packer.packArrayHeader(2);
+        List<MessageBuffer> queryBufferList = queryPacker.toBufferList();
+        for (int i = 0; i < queryBufferList.size(); i++) {
+            MessageBuffer messageBuffer = queryBufferList.get(i);
+            packer.addPayload(messageBuffer.array(), messageBuffer.arrayOffset(), messageBuffer.size());
+        }
+        queryPacker.clear();
+
+        packer.flush();
+        List<MessageBuffer> bufferList = packer.toBufferList();
+        out.writeByte(MessagePack.Code.UINT32);
+        int requestSize = 0;
+        for (int i = 0; i < bufferList.size(); i++) {
+            requestSize += bufferList.get(i).size();
+        }
+        out.writeInt(requestSize);
+        for (int i = 0; i < bufferList.size(); i++) {
+            MessageBuffer messageBuffer = bufferList.get(i);
+            out.write(messageBuffer.array(), messageBuffer.arrayOffset(), messageBuffer.size());
+        }
+        packer.clear();
+        out.flush();
+    }
+
+    @Benchmark
+    public void backpatched() throws IOException {
+        encoder.insertOrReplace(Util.CODE_INSERT, 512);
+        encoder.setInt(1);
+        encoder.setBytes(payload);
+        encoder.finishQueryWithArguments(output);
+        encoder.flush(output);
+    }
+
+    static final class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    static final class StreamOutput implements RequestOutput {
+        private final OutputStream out;
+
+        StreamOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(ByteBuffer[] buffers, int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                ByteBuffer buffer = buffers[i];
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
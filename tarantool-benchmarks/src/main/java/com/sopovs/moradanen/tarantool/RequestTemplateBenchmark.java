@@ -0,0 +1,42 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Iter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Primary key lookup encoded from scratch and from the pre-encoded RequestTemplate.
+
+//Benchmark                          Mode  Cnt    Score     Error  Units
+//RequestTemplateBenchmark.select    avgt    3  173.848 ± 659.536  ns/op
+//RequestTemplateBenchmark.template  avgt    3   42.984 ±  46.752  ns/op
+
+@BenchmarkMode(Mode.AverageTime)
+@Fork(3)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RequestTemplateBenchmark {
+    private final RequestEncoder encoder = new RequestEncoder();
+    private final RequestOutput output = new RequestEncoderBenchmark.StreamOutput(new RequestEncoderBenchmark.NullOutputStream());
+    private final RequestTemplate template = RequestTemplate.select(512, 0, 1, Iter.EQ);
+    private int key = 0;
+
+    @Benchmark
+    public void select() throws IOException {
+        encoder.select(512, 0, 1, 0, Iter.EQ);
+        encoder.setInt(++key);
+        encoder.finishQueryWithArguments(output);
+        encoder.flush(output);
+    }
+
+    @Benchmark
+    public void template() throws IOException {
+        encoder.request(template);
+        encoder.setInt(++key);
+        encoder.finishQueryWithArguments(output);
+        encoder.flush(output);
+    }
+}
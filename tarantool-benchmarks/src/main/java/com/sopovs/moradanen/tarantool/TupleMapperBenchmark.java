@@ -0,0 +1,77 @@
+package com.sopovs.moradanen.tarantool;
+
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Lives in the driver package to create ArrayResult without the server.
+// generated is BenchmarkTupleTupleMapper from tarantool-driver-processor, handWritten is the same mapping as lambda.
+
+//Benchmark                         (size)  Mode  Cnt       Score         Error  Units
+//TupleMapperBenchmark.handWritten       1  avgt    3     230.794 ±     118.825  ns/op
+//TupleMapperBenchmark.generated         1  avgt    3     184.083 ±     415.816  ns/op
+//
+//TupleMapperBenchmark.handWritten     100  avgt    3    9110.292 ±   32344.921  ns/op
+//TupleMapperBenchmark.generated       100  avgt    3    6872.063 ±   11396.878  ns/op
+//
+//TupleMapperBenchmark.handWritten   10000  avgt    3  883522.987 ±  731885.747  ns/op
+//TupleMapperBenchmark.generated     10000  avgt    3  772141.984 ± 2076614.344  ns/op
+
+@BenchmarkMode(Mode.AverageTime)
+@Fork(3)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TupleMapperBenchmark {
+    private static final TarantoolTemplate.ResultRowMapper<BenchmarkTuple> HAND_WRITTEN = result -> {
+        BenchmarkTuple tuple = new BenchmarkTuple();
+        tuple.id = result.getLong(0);
+        tuple.count = result.getInt(1);
+        tuple.name = result.getString(2);
+        tuple.rating = result.getDouble(3);
+        tuple.active = result.getBoolean(4);
+        return tuple;
+    };
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    private byte[] frame;
+
+    @Setup
+    public void setup() throws IOException {
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packArrayHeader(size);
+            for (int i = 0; i < size; i++) {
+                packer.packArrayHeader(5);
+                packer.packLong(i);
+                packer.packInt(i % 100);
+                packer.packString("Name" + i);
+                packer.packDouble(i / 3.0);
+                packer.packBoolean(i % 2 == 0);
+            }
+            frame = packer.toByteArray();
+        }
+    }
+
+    private Result result() {
+        MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(frame);
+        return new ArrayResult(unpacker, frame, frame.length, false);
+    }
+
+    @Benchmark
+    public List<BenchmarkTuple> handWritten() {
+        return new TarantoolTemplate.RowMapperResultExtractor<>(HAND_WRITTEN).extract(result());
+    }
+
+    @Benchmark
+    public List<BenchmarkTuple> generated() {
+        return new TarantoolTemplate.RowMapperResultExtractor<>(BenchmarkTupleTupleMapper.INSTANCE).extract(result());
+    }
+}
@@ -53,6 +53,7 @@ public class ConcurrentSelectBenchmark {
 
     private static final String THREAD_LOCAL = "threadLocal";
     private static final String POOLED_CLIENT_SOURCE = "pooledClientSource";
+    private static final String STRIPED_CLIENT_SOURCE = "stripedClientSource";
     private static final String REFERENCE_CLIENT = "referenceClient";
     int size = 10000;
     private org.tarantool.TarantoolClient referenceClient;
@@ -60,7 +61,7 @@ public class ConcurrentSelectBenchmark {
     private ThreadLocal<TarantoolClient> threadLocalClient;
     private int space;
 
-    @Param({REFERENCE_CLIENT, POOLED_CLIENT_SOURCE, THREAD_LOCAL})
+    @Param({REFERENCE_CLIENT, POOLED_CLIENT_SOURCE, STRIPED_CLIENT_SOURCE, THREAD_LOCAL})
     public String type;
 
     @Setup
@@ -77,6 +78,10 @@ public class ConcurrentSelectBenchmark {
             case POOLED_CLIENT_SOURCE:
                 clientSource = new TarantoolPooledClientSource("localhost", 3301, "admin", "javapass", 16);
                 break;
+            case STRIPED_CLIENT_SOURCE:
+                clientSource = new TarantoolStripedClientSource(
+                        new TarantoolConfig("localhost", 3301, "admin", "javapass"), 16);
+                break;
             case THREAD_LOCAL:
                 threadLocalClient = ThreadLocal.withInitial(() -> new TarantoolClientImpl("localhost", "admin", "javapass"));
                 break;
@@ -106,6 +111,7 @@ public class ConcurrentSelectBenchmark {
             case REFERENCE_CLIENT:
                 return referenceClient();
             case POOLED_CLIENT_SOURCE:
+            case STRIPED_CLIENT_SOURCE:
                 return clientSource();
             case THREAD_LOCAL:
                 return threadLocal();
@@ -120,6 +126,7 @@ public class ConcurrentSelectBenchmark {
             case REFERENCE_CLIENT:
                 return referenceClientAll();
             case POOLED_CLIENT_SOURCE:
+            case STRIPED_CLIENT_SOURCE:
                 return clientSourceAll();
             case THREAD_LOCAL:
                 return threadLocalAll();
@@ -206,6 +213,7 @@ public class ConcurrentSelectBenchmark {
                 referenceClient.close();
                 break;
             case POOLED_CLIENT_SOURCE:
+            case STRIPED_CLIENT_SOURCE:
                 clientSource.close();
                 break;
             case THREAD_LOCAL:
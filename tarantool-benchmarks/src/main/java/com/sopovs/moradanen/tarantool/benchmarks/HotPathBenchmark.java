@@ -0,0 +1,99 @@
+package com.sopovs.moradanen.tarantool.benchmarks;
+
+import com.sopovs.moradanen.tarantool.Result;
+import com.sopovs.moradanen.tarantool.TarantoolClient;
+import com.sopovs.moradanen.tarantool.TarantoolClientImpl;
+import com.sopovs.moradanen.tarantool.core.IntOp;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Single operations of TarantoolClientImpl, bytes/op should be looked at with -prof gc. Budgets of the same
+// operations are enforced by HotPathAllocationTest.
+// replace goes through the same encoding as insert, but can be repeated with the same keys.
+
+//Benchmark                                      Mode  Cnt     Score     Error   Units
+//HotPathBenchmark.ping                          avgt    3    22.222 ±  85.538   us/op
+//HotPathBenchmark.ping:·gc.alloc.rate.norm      avgt    3   242.768 ±  85.974    B/op
+//HotPathBenchmark.select                        avgt    3    22.784 ±  49.141   us/op
+//HotPathBenchmark.select:·gc.alloc.rate.norm    avgt    3   618.904 ±  70.395    B/op
+//HotPathBenchmark.replace                       avgt    3    22.909 ± 102.596   us/op
+//HotPathBenchmark.replace:·gc.alloc.rate.norm   avgt    3   592.646 ±   2.299    B/op
+//HotPathBenchmark.update                        avgt    3    25.872 ±  71.037   us/op
+//HotPathBenchmark.update:·gc.alloc.rate.norm    avgt    3   976.921 ±   4.984    B/op
+
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HotPathBenchmark {
+    static final int KEYS = 1000;
+
+    private TarantoolClient client;
+    private int space;
+    private int key;
+
+    @Setup
+    public void setup() {
+        client = new TarantoolClientImpl("localhost", 3301, "admin", "javapass");
+        client.evalFully("box.schema.space.create('hotpath')");
+        client.evalFully("box.space.hotpath:create_index('primary', {type = 'tree', parts = {1, 'num'}})");
+        space = client.space("hotpath");
+        for (int i = 0; i < KEYS; i++) {
+            client.insert(space);
+            client.setInt(i);
+            client.setInt(0);
+            client.setString("FooBar" + i);
+            client.addBatch();
+        }
+        client.executeBatch();
+    }
+
+    private int nextKey() {
+        key = key + 1 == KEYS ? 0 : key + 1;
+        return key;
+    }
+
+    @Benchmark
+    public void ping() {
+        client.ping();
+    }
+
+    @Benchmark
+    public int select() {
+        client.select(space, 0);
+        client.setInt(nextKey());
+        Result result = client.execute();
+        result.next();
+        return result.getInt(1);
+    }
+
+    @Benchmark
+    public int replace() {
+        client.replace(space);
+        client.setInt(nextKey());
+        client.setInt(key);
+        client.setString("BarFoo");
+        Result result = client.execute();
+        result.consume();
+        return result.getSize();
+    }
+
+    @Benchmark
+    public int update() {
+        client.update(space, 0);
+        client.setInt(nextKey());
+        client.change(IntOp.PLUS, 1, 1);
+        Result result = client.execute();
+        result.consume();
+        return result.getSize();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.evalFully("box.space.hotpath:drop()");
+        client.close();
+    }
+}
@@ -0,0 +1,66 @@
+package com.sopovs.moradanen.tarantool.benchmarks;
+
+import com.sopovs.moradanen.tarantool.Result;
+import com.sopovs.moradanen.tarantool.TarantoolClient;
+import com.sopovs.moradanen.tarantool.TarantoolClientImpl;
+import com.sopovs.moradanen.tarantool.TarantoolConfig;
+import com.sopovs.moradanen.tarantool.TransportType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Primary key lookup over loopback TCP and over the Unix domain socket of the same instance, which should listen on
+// both, e.g. box.cfg{listen = {3301, '/tmp/tarantool.sock'}}. The path is changed with -p unixSocket=...
+
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class UnixSocketBenchmark {
+    private static final int KEYS = 1000;
+
+    @Param({"SOCKET", "CHANNEL", "UNIX"})
+    public TransportType transport;
+    @Param("/tmp/tarantool.sock")
+    public String unixSocket;
+
+    private TarantoolClient client;
+    private int space;
+    private int key;
+
+    @Setup
+    public void setup() {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass");
+        client = new TarantoolClientImpl(transport == TransportType.UNIX
+                ? config.withUnixSocket(unixSocket)
+                : config.withTransport(transport));
+        client.evalFully("box.schema.space.create('unixsocket')");
+        client.evalFully("box.space.unixsocket:create_index('primary', {type = 'tree', parts = {1, 'num'}})");
+        space = client.space("unixsocket");
+        for (int i = 0; i < KEYS; i++) {
+            client.insert(space);
+            client.setInt(i);
+            client.setString("FooBar" + i);
+            client.addBatch();
+        }
+        client.executeBatch();
+    }
+
+    @Benchmark
+    public String select() {
+        key = key + 1 == KEYS ? 0 : key + 1;
+        client.select(space, 0);
+        client.setInt(key);
+        Result result = client.execute();
+        result.next();
+        return result.getString(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.evalFully("box.space.unixsocket:drop()");
+        client.close();
+    }
+}
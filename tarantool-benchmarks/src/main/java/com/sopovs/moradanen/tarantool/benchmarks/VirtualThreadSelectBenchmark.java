@@ -0,0 +1,121 @@
+package com.sopovs.moradanen.tarantool.benchmarks;
+
+import com.sopovs.moradanen.tarantool.Result;
+import com.sopovs.moradanen.tarantool.TarantoolClient;
+import com.sopovs.moradanen.tarantool.TarantoolClientImpl;
+import com.sopovs.moradanen.tarantool.TarantoolClientSource;
+import com.sopovs.moradanen.tarantool.TarantoolPooledClientSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Variant of ConcurrentSelectBenchmark with one operation being selects from 10k tasks sharing the pool of 16
+// connections. Tasks run either in a virtual thread each (Java 21+, looked up through reflection) or on 16 platform
+// threads. Waiting for a free connection should not pin carrier threads of virtual ones.
+
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class VirtualThreadSelectBenchmark {
+    static final String VIRTUAL = "virtual";
+    static final String PLATFORM = "platform";
+    private static final int POOL_SIZE = 16;
+    int size = 10000;
+    int tasks = 10000;
+    private TarantoolClientSource clientSource;
+    private ExecutorService executor;
+    private int space;
+
+    @Param({VIRTUAL, PLATFORM})
+    public String threads;
+
+    @Setup
+    public void setup() {
+        switch (threads) {
+            case VIRTUAL:
+                executor = newVirtualThreadPerTaskExecutor();
+                break;
+            case PLATFORM:
+                executor = Executors.newFixedThreadPool(POOL_SIZE);
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+        clientSource = new TarantoolPooledClientSource("localhost", 3301, "admin", "javapass", POOL_SIZE);
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
+            client.evalFully("box.schema.space.create('javabenchmark')").consume();
+            client.evalFully(
+                    "box.space.javabenchmark:create_index('primary', {type = 'hash', parts = {1, 'num'}})")
+                    .consume();
+            space = client.space("javabenchmark");
+            for (int i = 0; i < size; i++) {
+                client.insert(space);
+                client.setInt(i);
+                client.setString("FooBar" + i);
+                client.addBatch();
+            }
+            client.executeBatch();
+        }
+    }
+
+    static boolean isVirtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or newer", e);
+        }
+    }
+
+    @Benchmark
+    public int select() throws Exception {
+        List<Future<String>> futures = new ArrayList<>(tasks);
+        for (int i = 0; i < tasks; i++) {
+            futures.add(executor.submit(this::fromClientSource));
+        }
+        int length = 0;
+        for (Future<String> future : futures) {
+            length += future.get().length();
+        }
+        return length;
+    }
+
+    String fromClientSource() {
+        try (TarantoolClient client = clientSource.getClient()) {
+            client.select(space, 0);
+            client.setInt(ThreadLocalRandom.current().nextInt(size));
+            Result result = client.execute();
+            if (result.getSize() != 1) {
+                throw new IllegalStateException();
+            }
+            result.next();
+            return result.getString(1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
+            client.evalFully("box.space.javabenchmark:drop()").consume();
+        }
+        clientSource.close();
+    }
+}
@@ -26,6 +26,13 @@ class ConcurrentSelectBenchmarkTest {
         assertTrue(benchmark.clientSource().startsWith("FooBar"));
     }
 
+    @Test
+    void testStripedClient() throws Exception {
+        benchmark.type = "stripedClientSource";
+        benchmark.setup();
+        assertTrue(benchmark.clientSource().startsWith("FooBar"));
+    }
+
     @Test
     void testReferenceClient() throws Exception {
         benchmark.type = "referenceClient";
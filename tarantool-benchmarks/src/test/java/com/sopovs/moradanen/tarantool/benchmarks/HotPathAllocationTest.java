@@ -0,0 +1,76 @@
+package com.sopovs.moradanen.tarantool.benchmarks;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails when the operations of {@link HotPathBenchmark} start to allocate more than their budget. Budgets are
+ * bytes/op measured on the calling thread after warmup with some headroom, update them together with the results in
+ * {@link HotPathBenchmark} when allocation is reduced.
+ */
+class HotPathAllocationTest {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 10_000;
+
+    private final HotPathBenchmark benchmark = new HotPathBenchmark();
+    private final com.sun.management.ThreadMXBean threadBean = threadBean();
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    @BeforeEach
+    void setup() {
+        assumeTrue(threadBean != null && threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        benchmark.setup();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (threadBean != null && threadBean.isThreadAllocatedMemorySupported()) {
+            benchmark.tearDown();
+        }
+    }
+
+    private void assertBudget(String operation, long budget, Runnable op) {
+        for (int i = 0; i < WARMUP; i++) {
+            op.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        long perOp = (threadBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+        assertTrue(perOp <= budget, operation + " allocates " + perOp + " bytes/op, budget is " + budget);
+    }
+
+    @Test
+    void testPing() {
+        assertBudget("ping", 512, benchmark::ping);
+    }
+
+    @Test
+    void testSelect() {
+        assertBudget("select", 768, benchmark::select);
+    }
+
+    @Test
+    void testReplace() {
+        assertBudget("replace", 768, benchmark::replace);
+    }
+
+    @Test
+    void testUpdate() {
+        assertBudget("update", 1280, benchmark::update);
+    }
+}
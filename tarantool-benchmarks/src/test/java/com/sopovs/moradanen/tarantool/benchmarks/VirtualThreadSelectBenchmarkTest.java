@@ -0,0 +1,42 @@
+package com.sopovs.moradanen.tarantool.benchmarks;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadSelectBenchmarkTest {
+
+    private final VirtualThreadSelectBenchmark benchmark = new VirtualThreadSelectBenchmark();
+
+    @BeforeEach
+    void setup() {
+        benchmark.size = 33;
+        benchmark.tasks = 100;
+    }
+
+    @Test
+    void testPlatformThreads() throws Exception {
+        benchmark.threads = VirtualThreadSelectBenchmark.PLATFORM;
+        benchmark.setup();
+        assertTrue(benchmark.fromClientSource().startsWith("FooBar"));
+        assertTrue(benchmark.select() >= 100 * "FooBar0".length());
+    }
+
+    @Test
+    void testVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreadSelectBenchmark.isVirtualThreadsAvailable());
+        benchmark.threads = VirtualThreadSelectBenchmark.VIRTUAL;
+        benchmark.setup();
+        assertTrue(benchmark.select() >= 100 * "FooBar0".length());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (benchmark.threads != null) {
+            benchmark.tearDown();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.sopovs.moradanen.tarantool.core;
+
+/**
+ * Error returned by the server for the request, like a duplicate key. The response is read as a whole, so the
+ * connection stays usable.
+ */
+public class TarantoolServerException extends TarantoolException {
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+
+    public TarantoolServerException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    /**
+     * @return error code of the server, like 3 for a duplicate key
+     */
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,12 @@
+package com.sopovs.moradanen.tarantool.core;
+
+/**
+ * Response was not received in time. The connection is closed by then and can not be used anymore.
+ */
+public class TarantoolTimeoutException extends TarantoolException {
+    private static final long serialVersionUID = 1L;
+
+    public TarantoolTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -20,8 +20,13 @@ public final class Util {
     // SQL
     public static final int CODE_EXECUTE = 11;
     public static final int CODE_NOP = 12;
+    public static final int CODE_PREPARE = 13;
     public static final int CODE_PING = 64;
     public static final int CODE_SUBSCRIBE = 66;
+    // response code of an error is CODE_ERROR | error code
+    public static final int CODE_ERROR = 0x8000;
+    // error code of a request sent with a schema id other than the current one of the server
+    public static final int ER_WRONG_SCHEMA_VERSION = 109;
 
     public static final int KEY_SYNC = 0x01;
     public static final int KEY_SCHEMA_ID = 0x05;
@@ -43,9 +48,12 @@ public final class Util {
     public static final int KEY_FIELD_NAME = 0;
     public static final int KEY_FIELD_TYPE = 1;
     public static final int KEY_METADATA = 0x32;
+    public static final int KEY_BIND_METADATA = 0x33;
+    public static final int KEY_BIND_COUNT = 0x34;
     public static final int KEY_SQL_TEXT = 0x40;
     public static final int KEY_SQL_BIND = 0x41;
     public static final int KEY_SQL_INFO = 0x42;
+    public static final int KEY_STMT_ID = 0x43;
 
     public static final int KEY_SQL_ROW_COUNT = 0;
 
@@ -64,4 +72,20 @@ public final class Util {
     public static final int INDEX_SPACE_NAME = 2;
     public static final int INDEX_INDEX_PRIMARY = 0;
     public static final int INDEX_INDEX_NAME = 2;
+
+    /**
+     * @param version version from the greeting, like 2.3.1-3-g878e2a42c
+     */
+    public static boolean isVersionAtLeast(String version, int major, int minor) {
+        String[] parts = version.split("[.-]");
+        if (parts.length < 2) {
+            throw new TarantoolException("Unexpected version " + version);
+        }
+        try {
+            int actualMajor = Integer.parseInt(parts[0]);
+            return actualMajor > major || actualMajor == major && Integer.parseInt(parts[1]) >= minor;
+        } catch (NumberFormatException e) {
+            throw new TarantoolException("Unexpected version " + version, e);
+        }
+    }
 }
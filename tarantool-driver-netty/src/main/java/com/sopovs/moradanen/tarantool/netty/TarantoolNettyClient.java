@@ -0,0 +1,351 @@
+package com.sopovs.moradanen.tarantool.netty;
+
+import com.sopovs.moradanen.tarantool.*;
+import com.sopovs.moradanen.tarantool.core.*;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Pipelining client over Netty channel - epoll one on Linux and NIO one elsewhere. Requests are encoded the same way
+ * as by {@link TarantoolAsyncClient}, responses are decoded on the event loop and complete returned futures.
+ * <p>
+ * Many clients may share one {@link EventLoopGroup}, so thousands of requests in flight are served by a few threads.
+ * Requests are built the same way as with {@link TarantoolClient}. Building with the client itself is not thread-safe,
+ * while every {@link #newRequest()} has its own buffer, so threads sharing the connection build requests each with its
+ * own {@link Request} and send them without locking.
+ * <p>
+ * Encoding is done by the driver into a reused heap buffer, so every request is copied once into a pooled direct
+ * buffer of the channel, and every response is copied once from the channel buffer into a heap array, since results
+ * decode heap arrays with msgpack-core.
+ * <p>
+ * Unlike blocking clients, request timeout fails only the future of the late request, since its response is told
+ * apart by sync and dropped when it arrives.
+ */
+public class TarantoolNettyClient extends AsyncRequestBuilder implements Closeable {
+    static final String CONNECTION_CLOSED = "Connection closed";
+    private final Map<Integer, CompletableFuture<Result>> pending = new ConcurrentHashMap<>();
+    private final CompletableFuture<byte[]> greeting = new CompletableFuture<>();
+    // stateless, channel writes are thread-safe and every request is written as one buffer
+    private final ChannelOutput output = new ChannelOutput();
+    @Nullable
+    private final EventLoopGroup ownGroup;
+    private final Channel channel;
+    private final boolean slicedByteBuffers;
+    private final int requestTimeout;
+    private final String version;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates client with its own single threaded event loop group, that is shut down on {@link #close()}
+     */
+    public TarantoolNettyClient(TarantoolConfig config) {
+        this(config, newEventLoopGroup(1), true);
+    }
+
+    /**
+     * @param group event loop group that is not shut down on {@link #close()}, epoll one or NIO one
+     */
+    public TarantoolNettyClient(TarantoolConfig config, EventLoopGroup group) {
+        this(config, group, false);
+    }
+
+    private TarantoolNettyClient(TarantoolConfig config, EventLoopGroup group, boolean ownGroup) {
+        if (config.getTransport() == TransportType.UNIX) {
+            throw new TarantoolException("Unix domain sockets are not supported by Netty client");
+        }
+        this.ownGroup = ownGroup ? group : null;
+        slicedByteBuffers = config.isSlicedByteBuffers();
+        requestTimeout = config.getRequestTimeout();
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(group instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectTimeout())
+                .handler(new ResponseDecoder());
+        try {
+            ChannelFuture connect = bootstrap.connect(address(config.getHost(), config.getPort()))
+                    .awaitUninterruptibly();
+            if (!connect.isSuccess()) {
+                throw new TarantoolException(connect.cause());
+            }
+            channel = connect.channel();
+            version = connect(config);
+        } catch (TarantoolException e) {
+            if (ownGroup) {
+                group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return epoll event loop group if it is available, NIO one otherwise
+     */
+    public static EventLoopGroup newEventLoopGroup(int threads) {
+        return Epoll.isAvailable() ? new EpollEventLoopGroup(threads) : new NioEventLoopGroup(threads);
+    }
+
+    private static InetSocketAddress address(@Nullable String host, int port) {
+        return host == null
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                : new InetSocketAddress(host, port);
+    }
+
+    private String connect(TarantoolConfig config) {
+        int connectTimeout = config.getConnectTimeout();
+        try {
+            byte[] greetingBytes = await(greeting, connectTimeout);
+            String version = Iproto.parseGreeting(greetingBytes);
+            byte[] scramble = Iproto.scramble(config, greetingBytes);
+            if (scramble != null) {
+                startAuth(config.getUsername(), scramble);
+                try {
+                    await(send(sync(), false, this::writeRequest), connectTimeout);
+                } catch (TarantoolException e) {
+                    if (e instanceof TarantoolTimeoutException || e.getCause() != null) {
+                        throw e;
+                    }
+                    throw new TarantoolAuthException(e.getMessage());
+                }
+            }
+            return version;
+        } catch (IOException | TarantoolException e) {
+            TarantoolException exception = e instanceof TarantoolException
+                    ? (TarantoolException) e
+                    : new TarantoolException(e);
+            channel.close().awaitUninterruptibly();
+            throw exception;
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future, int timeout) {
+        try {
+            return timeout == 0 ? future.get() : future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TarantoolTimeoutException("Connection timed out after " + timeout + " ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof TarantoolException ? (TarantoolException) cause : new TarantoolException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TarantoolException(e);
+        }
+    }
+
+    /**
+     * @param sync sync of the built request, assigned when its building has started
+     */
+    private CompletableFuture<Result> send(int sync, boolean withArguments, RequestWriter writer) {
+        if (closed) {
+            throw new TarantoolException(CONNECTION_CLOSED);
+        }
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        // register before any byte may reach the channel
+        pending.put(sync, future);
+        try {
+            writer.write(output, withArguments);
+        } catch (IOException | TarantoolException e) {
+            pending.remove(sync);
+            throw e instanceof TarantoolException ? (TarantoolException) e : new TarantoolException(e);
+        }
+        if (!channel.isActive()) {
+            // channel may have been closed before the registration of this future
+            failPending(new IOException(CONNECTION_CLOSED));
+        } else if (requestTimeout != 0) {
+            ScheduledFuture<?> timeout = channel.eventLoop().schedule(() -> {
+                if (pending.remove(sync, future)) {
+                    future.completeExceptionally(
+                            new TarantoolTimeoutException("Request timed out after " + requestTimeout + " ms"));
+                }
+            }, requestTimeout, TimeUnit.MILLISECONDS);
+            // otherwise the task keeps the completed future with its result and frame until the timeout
+            future.whenComplete((result, e) -> timeout.cancel(false));
+        }
+        return future;
+    }
+
+    private void failPending(Throwable cause) {
+        for (Integer sync : pending.keySet()) {
+            CompletableFuture<Result> future = pending.remove(sync);
+            if (future != null) {
+                future.completeExceptionally(new TarantoolException(CONNECTION_CLOSED, cause));
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Result> execute() {
+        return send(sync(), true, this::writeRequest);
+    }
+
+    public CompletableFuture<Void> ping() {
+        try {
+            startPing();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+        return send(sync(), false, this::writeRequest).thenApply(result -> null);
+    }
+
+    /**
+     * @return builder of requests sent over this connection, to be used by one thread at a time
+     */
+    public Request newRequest() {
+        return new Request();
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public boolean isClosed() {
+        return closed || !channel.isActive();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            channel.close().awaitUninterruptibly();
+        } finally {
+            if (ownGroup != null) {
+                ownGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Builder with its own buffer sending requests over the connection of the client, many of them may be used by
+     * different threads at the same time
+     */
+    public final class Request extends AsyncRequestBuilder {
+
+        private Request() {
+            super(TarantoolNettyClient.this);
+        }
+
+        @Override
+        public CompletableFuture<Result> execute() {
+            return send(sync(), true, this::writeRequest);
+        }
+    }
+
+    private interface RequestWriter {
+        void write(RequestOutput output, boolean withArguments) throws IOException;
+    }
+
+    /**
+     * Copies encoded request into one pooled buffer of the channel allocator
+     */
+    private final class ChannelOutput implements RequestOutput {
+
+        @Override
+        public void write(ByteBuffer[] buffers, int length) {
+            int size = 0;
+            for (int i = 0; i < length; i++) {
+                size += buffers[i].remaining();
+            }
+            ByteBuf buf = channel.alloc().directBuffer(size);
+            for (int i = 0; i < length; i++) {
+                buf.writeBytes(buffers[i]);
+            }
+            channel.write(buf, channel.voidPromise());
+        }
+
+        @Override
+        public void flush() {
+            channel.flush();
+        }
+    }
+
+    /**
+     * Reads greeting and then frames of the size prefixed responses into heap arrays, since results decode them with
+     * msgpack-core
+     */
+    private final class ResponseDecoder extends ByteToMessageDecoder {
+        // decoding is done by the event loop of the channel only
+        private final Iproto.Header header = new Iproto.Header();
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws IOException {
+            if (!greeting.isDone()) {
+                if (in.readableBytes() < Iproto.GREETING_SIZE) {
+                    return;
+                }
+                byte[] greetingBytes = new byte[Iproto.GREETING_SIZE];
+                in.readBytes(greetingBytes);
+                greeting.complete(greetingBytes);
+            }
+            while (in.readableBytes() >= 5) {
+                int start = in.readerIndex();
+                byte prefix = in.getByte(start);
+                if (prefix != MessagePack.Code.UINT32) {
+                    throw new TarantoolException("Unexpected response size prefix " + prefix);
+                }
+                int size = in.getInt(start + 1);
+                if (in.readableBytes() < 5 + size) {
+                    return;
+                }
+                in.skipBytes(5);
+                byte[] frame = new byte[size];
+                in.readBytes(frame);
+                complete(frame);
+            }
+        }
+
+        private void complete(byte[] frame) throws IOException {
+            MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(frame);
+            Iproto.unpackHeader(unpacker, header);
+            CompletableFuture<Result> future = pending.remove(header.getSync());
+            if (future == null) {
+                // request has timed out
+                return;
+            }
+            try {
+                future.complete(Iproto.toResult(unpacker, header, frame, slicedByteBuffers));
+            } catch (TarantoolException | IOException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            closed = true;
+            IOException cause = new IOException(CONNECTION_CLOSED);
+            greeting.completeExceptionally(cause);
+            failPending(cause);
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            greeting.completeExceptionally(cause);
+            failPending(cause);
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+@NonNullApi
+package com.sopovs.moradanen.tarantool.netty;
+
+import com.sopovs.moradanen.tarantool.core.NonNullApi;
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.sopovs.moradanen.tarantool.netty;
+
+import com.sopovs.moradanen.tarantool.*;
+import com.sopovs.moradanen.tarantool.core.TarantoolAuthException;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.TarantoolTimeoutException;
+import com.sopovs.moradanen.tarantool.core.Util;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.sopovs.moradanen.tarantool.test.TestUtil.getEnvTarantoolVersion;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarantoolNettyClientTest {
+    private static final TarantoolConfig CONFIG = new TarantoolConfig("localhost", 3301, "admin", "javapass");
+
+    @Test
+    void testPing() throws Exception {
+        try (TarantoolNettyClient client = new TarantoolNettyClient(CONFIG)) {
+            client.ping().get();
+        }
+    }
+
+    @Test
+    void testGetVersion() {
+        try (TarantoolNettyClient client = new TarantoolNettyClient(CONFIG)) {
+            assertTrue(client.getVersion().startsWith(getEnvTarantoolVersion()));
+        }
+    }
+
+    @Test
+    void testWrongPassword() {
+        assertThrows(TarantoolAuthException.class,
+                () -> new TarantoolNettyClient(new TarantoolConfig("localhost", 3301, "admin", "wrongpass")));
+    }
+
+    @Test
+    void testPipelinedSelects() throws Exception {
+        try (TarantoolNettyClient client = new TarantoolNettyClient(CONFIG)) {
+            List<CompletableFuture<Result>> futures = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) {
+                client.selectAll(Util.SPACE_VSPACE, i, 0);
+                futures.add(client.execute());
+            }
+            for (int i = 1; i <= 10; i++) {
+                Result result = futures.get(i - 1).get();
+                assertEquals(i, result.getSize());
+                result.consume();
+                assertFalse(result.hasNext());
+            }
+        }
+    }
+
+    @Test
+    void testRequestsFromManyThreads() throws Exception {
+        try (TarantoolNettyClient client = new TarantoolNettyClient(CONFIG)) {
+            List<CompletableFuture<CompletableFuture<Result>>> threads = new ArrayList<>();
+            for (int t = 1; t <= 8; t++) {
+                int limit = t;
+                threads.add(CompletableFuture.supplyAsync(() -> {
+                    TarantoolNettyClient.Request request = client.newRequest();
+                    CompletableFuture<Result> last = null;
+                    for (int i = 0; i < 1000; i++) {
+                        request.selectAll(Util.SPACE_VSPACE, limit, 0);
+                        last = request.execute();
+                    }
+                    return last;
+                }));
+            }
+            for (int t = 1; t <= 8; t++) {
+                Result result = threads.get(t - 1).get().get();
+                assertEquals(t, result.getSize());
+                result.consume();
+            }
+        }
+    }
+
+    @Test
+    void testInsertAndSelect() throws Exception {
+        try (TarantoolClient syncClient = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> syncClient.evalFully("box.space.javatest:drop()");
+             TarantoolNettyClient client = new TarantoolNettyClient(CONFIG)) {
+            syncClient.evalFully("box.schema.space.create('javatest')").consume();
+            syncClient.evalFully("box.space.javatest:create_index('primary', {type = 'hash', parts = {1, 'num'}})")
+                    .consume();
+            int space = syncClient.space("javatest");
+
+            List<CompletableFuture<Result>> inserts = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                client.insert(space);
+                client.setInt(i);
+                client.setString("Foo" + i);
+                inserts.add(client.execute());
+            }
+            CompletableFuture.allOf(inserts.toArray(new CompletableFuture[0])).get();
+
+            client.select(space, 0);
+            client.setInt(5);
+            Result result = client.execute().get();
+            assertEquals(1, result.getSize());
+            assertTrue(result.next());
+            assertEquals("Foo5", result.getString(1));
+        }
+    }
+
+    @Test
+    void testSharedEventLoopGroup() throws Exception {
+        EventLoopGroup group = TarantoolNettyClient.newEventLoopGroup(2);
+        try {
+            List<TarantoolNettyClient> clients = new ArrayList<>();
+            try {
+                for (int i = 0; i < 4; i++) {
+                    clients.add(new TarantoolNettyClient(CONFIG, group));
+                }
+                List<CompletableFuture<Void>> pings = new ArrayList<>();
+                for (TarantoolNettyClient client : clients) {
+                    pings.add(client.ping());
+                }
+                CompletableFuture.allOf(pings.toArray(new CompletableFuture[0])).get();
+            } finally {
+                clients.forEach(TarantoolNettyClient::close);
+            }
+            assertFalse(group.isShuttingDown());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    void testError() throws Exception {
+        try (TarantoolNettyClient client = new TarantoolNettyClient(CONFIG)) {
+            client.eval("error('foo')");
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> client.execute().get());
+            assertTrue(exception.getCause() instanceof TarantoolException);
+            client.ping().get();
+        }
+    }
+
+    @Test
+    void testRequestTimeout() throws Exception {
+        try (TarantoolNettyClient client = new TarantoolNettyClient(CONFIG.withRequestTimeout(100))) {
+            client.eval("function sleep(ms) require('fiber').sleep(ms / 1000) end");
+            client.execute().get();
+            client.call("sleep");
+            client.setInt(1000);
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> client.execute().get());
+            assertTrue(exception.getCause() instanceof TarantoolTimeoutException);
+
+            // the late response is dropped and the connection is still usable
+            Thread.sleep(1000);
+            client.ping().get();
+            client.eval("sleep = nil");
+            client.execute().get();
+        }
+    }
+
+    @Test
+    void testClose() {
+        TarantoolNettyClient client = new TarantoolNettyClient(CONFIG);
+        assertFalse(client.isClosed());
+        client.close();
+        assertTrue(client.isClosed());
+        assertThrows(TarantoolException.class, client::ping);
+    }
+}
@@ -0,0 +1,362 @@
+package com.sopovs.moradanen.tarantool.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.Name;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates {@code TupleMapper} for every class annotated with {@code TarantoolTuple}. Generated mappers access
+ * fields (or their getters and setters) directly and call typed methods of {@code TarantoolClient} and
+ * {@code Result}, so there is no reflection and no boxing for primitive fields.
+ */
+public class TupleMapperProcessor extends AbstractProcessor {
+    static final String TUPLE = "com.sopovs.moradanen.tarantool.TarantoolTuple";
+    static final String FIELD = "com.sopovs.moradanen.tarantool.Field";
+    static final String SUFFIX = "TupleMapper";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(TUPLE);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@TarantoolTuple is only supported on classes");
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                List<TupleField> fields = fields(type);
+                if (fields != null && checkType(type)) {
+                    write(type, fields);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean checkType(TypeElement type) {
+        boolean valid = true;
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "@TarantoolTuple class should not be abstract");
+            valid = false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@TarantoolTuple class should not be generic");
+            valid = false;
+        }
+        for (Element enclosing = type; enclosing.getKind() != ElementKind.PACKAGE;
+             enclosing = enclosing.getEnclosingElement()) {
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)
+                    || enclosing.getEnclosingElement().getKind() != ElementKind.PACKAGE
+                    && !enclosing.getModifiers().contains(Modifier.STATIC)) {
+                error(type, "@TarantoolTuple class should be accessible from its package");
+                valid = false;
+                break;
+            }
+        }
+        boolean constructor = false;
+        for (ExecutableElement c : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE)) {
+                constructor = true;
+            }
+        }
+        if (!constructor) {
+            error(type, "@TarantoolTuple class should have non-private constructor without arguments");
+            valid = false;
+        }
+        return valid;
+    }
+
+    private List<TupleField> fields(TypeElement type) {
+        List<TupleField> fields = new ArrayList<>();
+        boolean valid = true;
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Integer index = fieldIndex(field);
+            if (index == null) {
+                continue;
+            }
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                error(field, "@Field should not be static");
+                valid = false;
+                continue;
+            }
+            FieldType fieldType = FieldType.of(field.asType());
+            if (fieldType == null) {
+                error(field, "Unsupported type of @Field " + field.asType());
+                valid = false;
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            String getter;
+            String setter;
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                getter = findGetter(type, field, fieldType == FieldType.BOOLEAN ? "is" + capitalized : null,
+                        "get" + capitalized);
+                setter = findSetter(type, field, "set" + capitalized);
+                if (getter == null || setter == null) {
+                    error(field, "Private @Field should have non-private getter and setter");
+                    valid = false;
+                    continue;
+                }
+                getter = getter + "()";
+                setter = setter + "(";
+            } else if (field.getModifiers().contains(Modifier.FINAL)) {
+                error(field, "@Field should not be final");
+                valid = false;
+                continue;
+            } else {
+                getter = name;
+                setter = name + " = ";
+            }
+            fields.add(new TupleField(index, fieldType, getter, setter));
+        }
+        if (!valid) {
+            return null;
+        }
+        fields.sort(Comparator.comparingInt(f -> f.index));
+        if (fields.isEmpty()) {
+            error(type, "@TarantoolTuple class should have at least one @Field");
+            return null;
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).index != i) {
+                error(type, "@Field indexes should start from 0 and have no gaps or duplicates, expected " + i
+                        + " but got " + fields.get(i).index);
+                return null;
+            }
+        }
+        return fields;
+    }
+
+    private static Integer fieldIndex(VariableElement field) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotation.getQualifiedName().contentEquals(FIELD)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return (Integer) entry.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private String findGetter(TypeElement type, VariableElement field, String... names) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            for (String name : names) {
+                if (name != null && method.getSimpleName().contentEquals(name)
+                        && method.getParameters().isEmpty()
+                        && !method.getModifiers().contains(Modifier.PRIVATE)
+                        && !method.getModifiers().contains(Modifier.STATIC)
+                        && processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String findSetter(TypeElement type, VariableElement field, String name) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(name)
+                    && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(),
+                    field.asType())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private void write(TypeElement type, List<TupleField> fields) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String mapperName = mapperName(type);
+        String typeName = type.getQualifiedName().toString();
+        String qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+
+        StringBuilder code = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            code.append("package ").append(packageName).append(";\n\n");
+        }
+        code.append("// Generated by ").append(TupleMapperProcessor.class.getName()).append(", do not edit\n");
+        if (type.getModifiers().contains(Modifier.PUBLIC)) {
+            code.append("public ");
+        }
+        code.append("final class ").append(mapperName)
+                .append(" implements com.sopovs.moradanen.tarantool.TupleMapper<").append(typeName).append("> {\n");
+        code.append("    public static final ").append(mapperName).append(" INSTANCE = new ")
+                .append(mapperName).append("();\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public void encode(com.sopovs.moradanen.tarantool.TarantoolClient client, ")
+                .append(typeName).append(" value) {\n");
+        for (TupleField field : fields) {
+            field.type.encode(code, "value." + field.getter, "f" + field.index);
+        }
+        code.append("    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public ").append(typeName).append(" map(com.sopovs.moradanen.tarantool.Result result) {\n");
+        code.append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n");
+        for (TupleField field : fields) {
+            code.append("        value.").append(field.setter);
+            field.type.decode(code, field.index);
+            code.append(field.setter.endsWith("(") ? ");\n" : ";\n");
+        }
+        code.append("        return value;\n");
+        code.append("    }\n");
+        code.append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedMapperName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(code.toString());
+            }
+        } catch (IOException e) {
+            error(type, "Could not write " + qualifiedMapperName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return {@code PersonTupleMapper} for {@code Person} and {@code Outer_PersonTupleMapper} for nested class
+     */
+    static String mapperName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing.getKind() != ElementKind.PACKAGE;
+             enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, enclosing.getSimpleName());
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class TupleField {
+        private final int index;
+        private final FieldType type;
+        private final String getter;
+        private final String setter;
+
+        TupleField(int index, FieldType type, String getter, String setter) {
+            this.index = index;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private enum FieldType {
+        BOOLEAN("Boolean", null),
+        INT("Int", null),
+        LONG("Long", null),
+        FLOAT("Float", null),
+        DOUBLE("Double", null),
+        BOXED_BOOLEAN("Boolean", "java.lang.Boolean"),
+        BOXED_INT("Int", "java.lang.Integer"),
+        BOXED_LONG("Long", "java.lang.Long"),
+        BOXED_FLOAT("Float", "java.lang.Float"),
+        BOXED_DOUBLE("Double", "java.lang.Double"),
+        STRING("String", "java.lang.String"),
+        BYTES("Bytes", "byte[]");
+
+        private final String method;
+        private final String nullable;
+
+        FieldType(String method, String nullable) {
+            this.method = method;
+            this.nullable = nullable;
+        }
+
+        void encode(StringBuilder code, String getter, String variable) {
+            if (nullable == null || this == STRING) {
+                // setString accepts null
+                code.append("        client.set").append(method).append('(').append(getter).append(");\n");
+            } else {
+                code.append("        ").append(nullable).append(' ').append(variable).append(" = ")
+                        .append(getter).append(";\n");
+                code.append("        if (").append(variable).append(" == null) {\n");
+                code.append("            client.setNull();\n");
+                code.append("        } else {\n");
+                code.append("            client.set").append(method).append('(').append(variable).append(");\n");
+                code.append("        }\n");
+            }
+        }
+
+        void decode(StringBuilder code, int index) {
+            if (nullable == null || this == STRING) {
+                code.append("result.get").append(method).append('(').append(index).append(')');
+            } else {
+                code.append("result.isNull(").append(index).append(") ? null : result.get").append(method)
+                        .append('(').append(index).append(')');
+            }
+        }
+
+        static FieldType of(TypeMirror type) {
+            switch (type.getKind()) {
+                case BOOLEAN:
+                    return BOOLEAN;
+                case INT:
+                    return INT;
+                case LONG:
+                    return LONG;
+                case FLOAT:
+                    return FLOAT;
+                case DOUBLE:
+                    return DOUBLE;
+                case ARRAY:
+                    return ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE ? BYTES : null;
+                case DECLARED:
+                    Name name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName();
+                    for (FieldType fieldType : values()) {
+                        if (fieldType.nullable != null && name.contentEquals(fieldType.nullable)) {
+                            return fieldType;
+                        }
+                    }
+                    return null;
+                default:
+                    return null;
+            }
+        }
+    }
+}
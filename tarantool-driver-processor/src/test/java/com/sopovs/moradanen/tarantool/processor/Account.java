@@ -0,0 +1,64 @@
+package com.sopovs.moradanen.tarantool.processor;
+
+import com.sopovs.moradanen.tarantool.Field;
+import com.sopovs.moradanen.tarantool.TarantoolTuple;
+
+@TarantoolTuple
+public class Account {
+    @Field(0)
+    private long id;
+    @Field(1)
+    private Integer limit;
+    @Field(2)
+    private byte[] key;
+    @Field(3)
+    private boolean blocked;
+    @Field(4)
+    private Float score;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public byte[] getKey() {
+        return key;
+    }
+
+    public void setKey(byte[] key) {
+        this.key = key;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    public void setBlocked(boolean blocked) {
+        this.blocked = blocked;
+    }
+
+    public Float getScore() {
+        return score;
+    }
+
+    public void setScore(Float score) {
+        this.score = score;
+    }
+
+    @TarantoolTuple
+    static class Nested {
+        @Field(0)
+        int id;
+    }
+}
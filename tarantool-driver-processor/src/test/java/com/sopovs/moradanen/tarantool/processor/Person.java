@@ -0,0 +1,19 @@
+package com.sopovs.moradanen.tarantool.processor;
+
+import com.sopovs.moradanen.tarantool.Field;
+import com.sopovs.moradanen.tarantool.TarantoolTuple;
+
+@TarantoolTuple
+class Person {
+    @Field(0)
+    int id;
+    @Field(2)
+    String name;
+    @Field(1)
+    long created;
+    @Field(3)
+    double rating;
+    @Field(4)
+    boolean active;
+    String ignored;
+}
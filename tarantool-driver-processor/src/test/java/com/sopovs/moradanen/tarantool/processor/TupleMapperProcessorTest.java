@@ -0,0 +1,186 @@
+package com.sopovs.moradanen.tarantool.processor;
+
+import com.sopovs.moradanen.tarantool.Result;
+import com.sopovs.moradanen.tarantool.TarantoolClient;
+import com.sopovs.moradanen.tarantool.TarantoolClientImpl;
+import com.sopovs.moradanen.tarantool.TarantoolTemplate;
+import com.sopovs.moradanen.tarantool.TarantoolTuple;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TupleMapperProcessorTest {
+
+    private static TarantoolClient createClient() {
+        TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+        client.evalFully("box.schema.space.create('javatest')");
+        client.evalFully("box.space.javatest:create_index('primary', {type = 'hash', parts = {1, 'num'}})");
+        return client;
+    }
+
+    @Test
+    void testFields() throws Exception {
+        try (TarantoolClient client = createClient();
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            for (int i = 0; i < 3; i++) {
+                Person person = new Person();
+                person.id = i;
+                person.created = 1000L * i;
+                person.name = i == 2 ? null : "Person" + i;
+                person.rating = i / 2.0;
+                person.active = i % 2 == 0;
+                person.ignored = "ignored";
+                client.insert("javatest");
+                PersonTupleMapper.INSTANCE.encode(client, person);
+                client.addBatch();
+            }
+            client.executeBatch();
+
+            client.selectAll("javatest");
+            List<Person> persons = new TarantoolTemplate.RowMapperResultExtractor<>(PersonTupleMapper.INSTANCE)
+                    .extract(client.execute());
+            persons.sort((a, b) -> Integer.compare(a.id, b.id));
+            assertEquals(3, persons.size());
+            for (int i = 0; i < 3; i++) {
+                Person person = persons.get(i);
+                assertEquals(i, person.id);
+                assertEquals(1000L * i, person.created);
+                assertEquals(i == 2 ? null : "Person" + i, person.name);
+                assertEquals(i / 2.0, person.rating);
+                assertEquals(i % 2 == 0, person.active);
+                assertNull(person.ignored);
+            }
+        }
+    }
+
+    @Test
+    void testAccessorsAndNulls() throws Exception {
+        try (TarantoolClient client = createClient();
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            Account full = new Account();
+            full.setId(1L);
+            full.setLimit(100);
+            full.setKey(new byte[]{1, 2, 3});
+            full.setBlocked(true);
+            full.setScore(0.5F);
+            client.insert("javatest");
+            AccountTupleMapper.INSTANCE.encode(client, full);
+            client.execute().consume();
+
+            Account empty = new Account();
+            empty.setId(2L);
+            client.insert("javatest");
+            AccountTupleMapper.INSTANCE.encode(client, empty);
+            client.execute().consume();
+
+            client.select("javatest", 0);
+            client.setLong(1L);
+            Result result = client.execute();
+            assertTrue(result.next());
+            Account account = AccountTupleMapper.INSTANCE.map(result);
+            assertEquals(1L, account.getId());
+            assertEquals(Integer.valueOf(100), account.getLimit());
+            assertArrayEquals(new byte[]{1, 2, 3}, account.getKey());
+            assertTrue(account.isBlocked());
+            assertEquals(Float.valueOf(0.5F), account.getScore());
+
+            client.select("javatest", 0);
+            client.setLong(2L);
+            result = client.execute();
+            assertTrue(result.next());
+            account = AccountTupleMapper.INSTANCE.map(result);
+            assertEquals(2L, account.getId());
+            assertNull(account.getLimit());
+            assertNull(account.getKey());
+            assertFalse(account.isBlocked());
+            assertNull(account.getScore());
+        }
+    }
+
+    @Test
+    void testNested() throws Exception {
+        try (TarantoolClient client = createClient();
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            Account.Nested nested = new Account.Nested();
+            nested.id = 42;
+            client.replace("javatest");
+            Account_NestedTupleMapper.INSTANCE.encode(client, nested);
+            Result result = client.execute();
+            assertTrue(result.next());
+            assertEquals(42, Account_NestedTupleMapper.INSTANCE.map(result).id);
+        }
+    }
+
+    @Test
+    void testGap() throws Exception {
+        List<String> errors = compile("Gap", "@TarantoolTuple class Gap { @Field(0) int a; @Field(2) int b; }");
+        assertEquals(Collections.singletonList(
+                "@Field indexes should start from 0 and have no gaps or duplicates, expected 1 but got 2"), errors);
+    }
+
+    @Test
+    void testUnsupported() throws Exception {
+        List<String> errors = compile("Unsupported",
+                "@TarantoolTuple class Unsupported { @Field(0) int a; @Field(1) java.util.Date b; }");
+        assertEquals(Collections.singletonList("Unsupported type of @Field java.util.Date"), errors);
+    }
+
+    @Test
+    void testPrivateWithoutAccessors() throws Exception {
+        List<String> errors = compile("NoAccessors",
+                "@TarantoolTuple class NoAccessors { @Field(0) private int a; public int getA() { return a; } }");
+        assertEquals(Collections.singletonList("Private @Field should have non-private getter and setter"), errors);
+    }
+
+    @Test
+    void testNoConstructor() throws Exception {
+        List<String> errors = compile("NoConstructor",
+                "@TarantoolTuple class NoConstructor { @Field(0) int a; NoConstructor(int a) { this.a = a; } }");
+        assertEquals(Collections.singletonList(
+                "@TarantoolTuple class should have non-private constructor without arguments"), errors);
+    }
+
+    private static List<String> compile(String name, String source) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Path output = Files.createTempDirectory("processor");
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            fileManager.setLocation(StandardLocation.CLASS_PATH, Collections.singletonList(
+                    new File(TarantoolTuple.class.getProtectionDomain().getCodeSource().getLocation().toURI())));
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(output.toFile()));
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(output.toFile()));
+            JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + name + ".java"),
+                    JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return "import com.sopovs.moradanen.tarantool.*;\n" + source;
+                }
+            };
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-proc:only"), null, Collections.singletonList(file));
+            task.setProcessors(Collections.singletonList(new TupleMapperProcessor()));
+            task.call();
+        }
+        return diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(d -> d.getMessage(null))
+                .collect(Collectors.toList());
+    }
+}
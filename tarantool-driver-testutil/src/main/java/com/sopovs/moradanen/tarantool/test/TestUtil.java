@@ -7,4 +7,11 @@ public class TestUtil {
         return version == null ? "2.1" : version;
     }
 
+    /**
+     * @return path of the Unix domain socket the test instance listens on, or null if it listens on TCP only
+     */
+    public static String getEnvTarantoolSocket() {
+        return System.getenv("TARANTOOL_SOCKET");
+    }
+
 }
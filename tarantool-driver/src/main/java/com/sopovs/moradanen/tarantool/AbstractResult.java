@@ -2,27 +2,61 @@ package com.sopovs.moradanen.tarantool;
 
 import com.sopovs.moradanen.tarantool.core.Nullable;
 import com.sopovs.moradanen.tarantool.core.TarantoolException;
-import org.msgpack.core.MessagePackException;
-import org.msgpack.core.MessageTypeCastException;
+import org.msgpack.core.MessageFormat;
+import org.msgpack.core.MessageIntegerOverflowException;
+import org.msgpack.core.MessagePack;
 import org.msgpack.core.MessageUnpacker;
-import org.msgpack.value.ImmutableArrayValue;
-import org.msgpack.value.Value;
 import org.msgpack.value.ValueType;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
+/**
+ * Decodes rows straight from the response frame: {@link #next()} only records offsets of the row fields and getters
+ * decode the requested field in place.
+ */
 abstract class AbstractResult implements Result {
+    static final String RESULT_INVALIDATED = "Result is not readable after the next request of the client";
 
-    private final MessageUnpacker unpacker;
+    private final byte[] frame;
+    private final int byteSize;
+    private final boolean slicedByteBuffers;
+    private int position;
     private int counter;
-    @Nullable
-    private ImmutableArrayValue current;
+    private int[] fields = new int[16];
+    private int fieldCount = -1;
+    private boolean invalidated = false;
+
+    /**
+     * @param slicedByteBuffers whether {@link #getByteBuffer(int)} returns read-only view of the frame instead of copy
+     */
+    AbstractResult(byte[] frame, int byteSize, boolean slicedByteBuffers) {
+        this.frame = frame;
+        this.byteSize = byteSize;
+        this.slicedByteBuffers = slicedByteBuffers;
+    }
+
+    /**
+     * Must be called by subclasses once the offset of the first row in the frame is known
+     */
+    final void rowsStart(int offset) {
+        position = offset;
+    }
 
-    AbstractResult(MessageUnpacker unpacker) {
-        this.unpacker = unpacker;
+    /**
+     * Called by the client before the frame shared with this result is overwritten by the next response
+     */
+    final void invalidate() {
+        invalidated = true;
+    }
 
+    private void checkNotInvalidated() {
+        if (invalidated) {
+            throw new TarantoolException(RESULT_INVALIDATED);
+        }
     }
 
     private static String decode(ValueType valueType) {
@@ -43,170 +77,408 @@ abstract class AbstractResult implements Result {
         }
     }
 
+    @Override
+    public int getByteSize() {
+        return byteSize;
+    }
+
     @Override
     public boolean hasNext() {
         return counter < getSize();
     }
 
+    /**
+     * The frame has been read as a whole already, so remaining rows are not even skipped
+     */
     @Override
     public void consume() {
-        while (counter < getSize()) {
-            counter++;
-            try {
-                // TODO seems like it may hang in case no data to read...
-                unpacker.unpackValue();
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-        }
+        counter = getSize();
+        position = byteSize;
     }
 
     @Override
     public boolean next() {
         if (hasNext()) {
+            checkNotInvalidated();
             counter++;
-            current = nextInternal();
+            nextInternal();
             return true;
         }
         return false;
     }
 
     private void checkNextCalled() {
-        if (current == null) {
+        if (fieldCount < 0) {
             throw new TarantoolException("next() was not called on result");
         }
     }
 
+    private int field(int index) {
+        checkNextCalled();
+        checkNotInvalidated();
+        if (index < 0 || index >= fieldCount) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return fields[index];
+    }
+
+    private TarantoolException typeException(String expected, int offset) {
+        return new TarantoolException("Expected " + expected + ", but got "
+                + decode(MessageFormat.valueOf(frame[offset]).getValueType()));
+    }
+
     @Override
     public boolean isNull(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        return current.get(index).isNilValue();
+        return MessageFormat.valueOf(frame[field(index)]) == MessageFormat.NIL;
     }
 
     @Override
     public boolean getBoolean(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        try {
-            return current.get(index).asBooleanValue().getBoolean();
-        } catch (MessageTypeCastException e) {
-            throw new TarantoolException("Expected boolean, but got " + decode(current.get(index).getValueType()), e);
-        } catch (MessagePackException e) {
+        int offset = field(index);
+        if (MessageFormat.valueOf(frame[offset]) != MessageFormat.BOOLEAN) {
+            throw typeException("boolean", offset);
+        }
+        return frame[offset] == (byte) 0xc3;
+    }
+
+    /**
+     * Reads boolean option from the map field, as in {@code opts} of system spaces
+     *
+     * @return value of the string key or {@code defaultValue} if the map has no such key
+     */
+    boolean getMapBoolean(int index, String key, boolean defaultValue) {
+        int offset = field(index);
+        if (MessageFormat.valueOf(frame[offset]).getValueType() != ValueType.MAP) {
+            throw typeException("map", offset);
+        }
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(frame, offset, frame.length - offset)) {
+            int size = unpacker.unpackMapHeader();
+            for (int i = 0; i < size; i++) {
+                if (unpacker.getNextFormat().getValueType() != ValueType.STRING) {
+                    unpacker.skipValue();
+                } else if (key.equals(unpacker.unpackString())) {
+                    return unpacker.unpackBoolean();
+                }
+                unpacker.skipValue();
+            }
+            return defaultValue;
+        } catch (IOException e) {
             throw new TarantoolException(e);
         }
     }
 
     @Override
     public double getDouble(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        try {
-            return current.get(index).asFloatValue().toDouble();
-        } catch (MessageTypeCastException e) {
-            throw new TarantoolException("Expected float, but got " + decode(current.get(index).getValueType()), e);
-        } catch (MessagePackException e) {
-            throw new TarantoolException(e);
+        int offset = field(index);
+        switch (MessageFormat.valueOf(frame[offset])) {
+            case FLOAT32:
+                return Float.intBitsToFloat(readInt(frame, offset + 1));
+            case FLOAT64:
+                return Double.longBitsToDouble(readLong(frame, offset + 1));
+            default:
+                throw typeException("float", offset);
         }
     }
 
     @Override
     public float getFloat(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        try {
-            return current.get(index).asFloatValue().toFloat();
-        } catch (MessageTypeCastException e) {
-            throw new TarantoolException("Expected float, but got " + decode(current.get(index).getValueType()), e);
-        } catch (MessagePackException e) {
-            throw new TarantoolException(e);
+        int offset = field(index);
+        switch (MessageFormat.valueOf(frame[offset])) {
+            case FLOAT32:
+                return Float.intBitsToFloat(readInt(frame, offset + 1));
+            case FLOAT64:
+                return (float) Double.longBitsToDouble(readLong(frame, offset + 1));
+            default:
+                throw typeException("float", offset);
         }
     }
 
     @Override
     public long getLong(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        try {
-            return current.get(index).asIntegerValue().asLong();
-        } catch (MessageTypeCastException e) {
-            throw new TarantoolException("Expected integer, but got " + decode(current.get(index).getValueType()), e);
-        } catch (MessagePackException e) {
-            throw new TarantoolException(e);
+        int offset = field(index);
+        switch (MessageFormat.valueOf(frame[offset])) {
+            case POSFIXINT:
+            case NEGFIXINT:
+                return frame[offset];
+            case UINT8:
+                return frame[offset + 1] & 0xff;
+            case UINT16:
+                return readShort(frame, offset + 1) & 0xffff;
+            case UINT32:
+                return readInt(frame, offset + 1) & 0xffffffffL;
+            case UINT64:
+                long value = readLong(frame, offset + 1);
+                if (value < 0) {
+                    BigInteger bigValue = BigInteger.valueOf(value + Long.MAX_VALUE + 1L).setBit(63);
+                    throw new TarantoolException(new MessageIntegerOverflowException(bigValue));
+                }
+                return value;
+            case INT8:
+                return frame[offset + 1];
+            case INT16:
+                return readShort(frame, offset + 1);
+            case INT32:
+                return readInt(frame, offset + 1);
+            case INT64:
+                return readLong(frame, offset + 1);
+            default:
+                throw typeException("integer", offset);
         }
     }
 
     @Override
     public int getInt(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        try {
-            return current.get(index).asIntegerValue().asInt();
-        } catch (MessageTypeCastException e) {
-            throw new TarantoolException("Expected integer, but got " + decode(current.get(index).getValueType()), e);
-        } catch (MessagePackException e) {
-            throw new TarantoolException(e);
+        long value = getLong(index);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new TarantoolException(new MessageIntegerOverflowException(value));
         }
+        return (int) value;
     }
 
     @Override
     @Nullable
     public String getString(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        Value value = current.get(index);
-        if (value.isNilValue()) {
+        int offset = field(index);
+        MessageFormat format = MessageFormat.valueOf(frame[offset]);
+        if (format == MessageFormat.NIL) {
             return null;
         }
-        try {
-            return value.asStringValue().asString();
-        } catch (MessageTypeCastException e) {
-            throw new TarantoolException("Expected string, but got " + decode(current.get(index).getValueType()), e);
-        } catch (MessagePackException e) {
-            throw new TarantoolException(e);
+        if (format.getValueType() != ValueType.STRING) {
+            throw typeException("string", offset);
         }
+        int start = payloadStart(frame, offset);
+        return new String(frame, start, payloadEnd(frame, offset) - start, StandardCharsets.UTF_8);
     }
 
-    @Override
-    public byte[] getBytes(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        try {
-            return current.get(index).asBinaryValue().asByteArray();
+    /**
+     * @return length in bytes of the UTF-8 encoded string field
+     */
+    final int getStringLength(int index) {
+        int offset = stringField(index);
+        return payloadEnd(frame, offset) - payloadStart(frame, offset);
+    }
 
-        } catch (MessageTypeCastException e) {
-            throw new TarantoolException("Expected binary, but got " + decode(current.get(index).getValueType()), e);
-        } catch (MessagePackException e) {
-            throw new TarantoolException(e);
+    /**
+     * Copies UTF-8 bytes of the string field, {@code target} should have {@link #getStringLength(int)} bytes left
+     */
+    final void copyString(int index, byte[] target, int targetOffset) {
+        int offset = stringField(index);
+        int start = payloadStart(frame, offset);
+        System.arraycopy(frame, start, target, targetOffset, payloadEnd(frame, offset) - start);
+    }
+
+    private int stringField(int index) {
+        int offset = field(index);
+        if (MessageFormat.valueOf(frame[offset]).getValueType() != ValueType.STRING) {
+            throw typeException("string", offset);
         }
+        return offset;
+    }
+
+    @Override
+    public byte[] getBytes(int index) {
+        int offset = binaryField(index);
+        return Arrays.copyOfRange(frame, payloadStart(frame, offset), payloadEnd(frame, offset));
     }
 
     @Override
     public ByteBuffer getByteBuffer(int index) {
-        checkNextCalled();
-        assert current != null; //hack to disable warning
-        try {
-            return current.get(index).asBinaryValue().asByteBuffer();
-        } catch (MessageTypeCastException e) {
-            throw new TarantoolException("Expected binary, but got " + decode(current.get(index).getValueType()), e);
-        } catch (MessagePackException e) {
-            throw new TarantoolException(e);
+        if (!slicedByteBuffers) {
+            return ByteBuffer.wrap(getBytes(index)).asReadOnlyBuffer();
+        }
+        int offset = binaryField(index);
+        int start = payloadStart(frame, offset);
+        return ByteBuffer.wrap(frame, start, payloadEnd(frame, offset) - start).slice().asReadOnlyBuffer();
+    }
+
+    private int binaryField(int index) {
+        int offset = field(index);
+        if (MessageFormat.valueOf(frame[offset]).getValueType() != ValueType.BINARY) {
+            throw typeException("binary", offset);
         }
+        return offset;
     }
 
     @Override
     public int currentSize() {
         checkNextCalled();
-        assert current != null; //hack to disable warning
-        return current.size();
+        return fieldCount;
     }
 
-    private ImmutableArrayValue nextInternal() {
-        try {
-            return unpacker.unpackValue().asArrayValue();
-        } catch (IOException e) {
-            throw new TarantoolException(e);
+    private void nextInternal() {
+        int size;
+        switch (MessageFormat.valueOf(frame[position])) {
+            case FIXARRAY:
+                size = frame[position] & 0x0f;
+                position += 1;
+                break;
+            case ARRAY16:
+                size = readShort(frame, position + 1) & 0xffff;
+                position += 3;
+                break;
+            case ARRAY32:
+                size = readInt(frame, position + 1);
+                position += 5;
+                break;
+            default:
+                throw typeException("array", position);
         }
+        if (fields.length < size) {
+            fields = new int[Math.max(size, fields.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            fields[i] = position;
+            position = skip(frame, position);
+        }
+        fieldCount = size;
+    }
+
+    private static short readShort(byte[] bytes, int offset) {
+        return (short) ((bytes[offset] & 0xff) << 8 | bytes[offset + 1] & 0xff);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) << 24
+                | (bytes[offset + 1] & 0xff) << 16
+                | (bytes[offset + 2] & 0xff) << 8
+                | bytes[offset + 3] & 0xff;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        return (readInt(bytes, offset) & 0xffffffffL) << 32 | readInt(bytes, offset + 4) & 0xffffffffL;
     }
 
+    /**
+     * @return offset of the first payload byte of str or bin value
+     */
+    private static int payloadStart(byte[] bytes, int offset) {
+        switch (MessageFormat.valueOf(bytes[offset])) {
+            case FIXSTR:
+                return offset + 1;
+            case STR8:
+            case BIN8:
+                return offset + 2;
+            case STR16:
+            case BIN16:
+                return offset + 3;
+            case STR32:
+            case BIN32:
+                return offset + 5;
+            default:
+                throw new TarantoolException("Not a str or bin value at " + offset);
+        }
+    }
+
+    private static int payloadEnd(byte[] bytes, int offset) {
+        switch (MessageFormat.valueOf(bytes[offset])) {
+            case FIXSTR:
+                return offset + 1 + (bytes[offset] & 0x1f);
+            case STR8:
+            case BIN8:
+                return offset + 2 + (bytes[offset + 1] & 0xff);
+            case STR16:
+            case BIN16:
+                return offset + 3 + (readShort(bytes, offset + 1) & 0xffff);
+            case STR32:
+            case BIN32:
+                return offset + 5 + readInt(bytes, offset + 1);
+            default:
+                throw new TarantoolException("Not a str or bin value at " + offset);
+        }
+    }
+
+    /**
+     * @return offset right after the value starting at {@code offset}
+     */
+    static int skip(byte[] bytes, int offset) {
+        int remaining = 1;
+        while (remaining > 0) {
+            remaining--;
+            byte b = bytes[offset];
+            switch (MessageFormat.valueOf(b)) {
+                case POSFIXINT:
+                case NEGFIXINT:
+                case NIL:
+                case BOOLEAN:
+                    offset += 1;
+                    break;
+                case FIXMAP:
+                    remaining += (b & 0x0f) * 2;
+                    offset += 1;
+                    break;
+                case FIXARRAY:
+                    remaining += b & 0x0f;
+                    offset += 1;
+                    break;
+                case FIXSTR:
+                case STR8:
+                case STR16:
+                case STR32:
+                case BIN8:
+                case BIN16:
+                case BIN32:
+                    offset = payloadEnd(bytes, offset);
+                    break;
+                case UINT8:
+                case INT8:
+                    offset += 2;
+                    break;
+                case UINT16:
+                case INT16:
+                case FIXEXT1:
+                    offset += 3;
+                    break;
+                case FIXEXT2:
+                    offset += 4;
+                    break;
+                case UINT32:
+                case INT32:
+                case FLOAT32:
+                    offset += 5;
+                    break;
+                case FIXEXT4:
+                    offset += 6;
+                    break;
+                case UINT64:
+                case INT64:
+                case FLOAT64:
+                    offset += 9;
+                    break;
+                case FIXEXT8:
+                    offset += 10;
+                    break;
+                case FIXEXT16:
+                    offset += 18;
+                    break;
+                case EXT8:
+                    offset += 3 + (bytes[offset + 1] & 0xff);
+                    break;
+                case EXT16:
+                    offset += 4 + (readShort(bytes, offset + 1) & 0xffff);
+                    break;
+                case EXT32:
+                    offset += 6 + readInt(bytes, offset + 1);
+                    break;
+                case ARRAY16:
+                    remaining += readShort(bytes, offset + 1) & 0xffff;
+                    offset += 3;
+                    break;
+                case ARRAY32:
+                    remaining += readInt(bytes, offset + 1);
+                    offset += 5;
+                    break;
+                case MAP16:
+                    remaining += (readShort(bytes, offset + 1) & 0xffff) * 2;
+                    offset += 3;
+                    break;
+                case MAP32:
+                    remaining += readInt(bytes, offset + 1) * 2;
+                    offset += 5;
+                    break;
+                default:
+                    throw new TarantoolException("Unexpected msgpack byte " + b + " at " + offset);
+            }
+        }
+        return offset;
+    }
 }
@@ -8,9 +8,13 @@ import java.io.IOException;
 class ArrayResult extends AbstractResult {
     private final int size;
 
-    ArrayResult(MessageUnpacker unpacker) {
-        super(unpacker);
+    /**
+     * @param unpacker reading {@code frame} from its beginning, positioned at the data array
+     */
+    ArrayResult(MessageUnpacker unpacker, byte[] frame, int byteSize, boolean slicedByteBuffers) {
+        super(frame, byteSize, slicedByteBuffers);
         size = getArraySize(unpacker);
+        rowsStart(Math.toIntExact(unpacker.getTotalReadBytes()));
     }
 
     @Override
@@ -0,0 +1,175 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.*;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Building of requests for the clients that return futures, like {@link TarantoolAsyncClient}. Requests are built the
+ * same way as with {@link TarantoolClient} and sent by {@link #execute()}, the building is not thread-safe.
+ * <p>
+ * Protected methods are the only access of the clients in other packages to the encoding, which writes every request
+ * as one frame to {@link RequestOutput}.
+ */
+public abstract class AsyncRequestBuilder {
+    private final AtomicInteger syncs;
+    private final RequestEncoder encoder;
+
+    protected AsyncRequestBuilder() {
+        this(new AtomicInteger());
+    }
+
+    /**
+     * Builder of the same connection with its own buffer, requests built by both get distinct syncs
+     */
+    protected AsyncRequestBuilder(AsyncRequestBuilder connection) {
+        this(connection.syncs);
+    }
+
+    private AsyncRequestBuilder(AtomicInteger syncs) {
+        this.syncs = syncs;
+        encoder = new RequestEncoder(syncs);
+    }
+
+    /**
+     * @return sync of the request being built, assigned when its building has started
+     */
+    protected final int sync() {
+        return encoder.getSync();
+    }
+
+    /**
+     * Writes the built request and flushes the output
+     *
+     * @param withArguments {@code false} for requests without arguments, like ping and auth
+     */
+    protected final void writeRequest(RequestOutput output, boolean withArguments) throws IOException {
+        if (withArguments) {
+            encoder.finishQueryWithArguments(output);
+        } else {
+            encoder.finishQuery(output);
+        }
+        encoder.flush(output);
+    }
+
+    protected final void startAuth(String login, byte[] scramble) throws IOException {
+        encoder.auth(login, scramble);
+    }
+
+    protected final void startPing() throws IOException {
+        encoder.ping();
+    }
+
+    /**
+     * Sends the built request
+     *
+     * @return future completed with the result once the response arrives
+     */
+    public abstract CompletableFuture<Result> execute();
+
+    public void select(int space, int index, int limit, int offset, Iter iterator) {
+        encoder.select(space, index, limit, offset, iterator);
+    }
+
+    public void select(int space, int index) {
+        select(space, index, Integer.MAX_VALUE, 0, Iter.EQ);
+    }
+
+    public void selectAll(int space, int limit, int offset) {
+        encoder.selectAll(space, limit, offset);
+    }
+
+    public void selectAll(int space) {
+        selectAll(space, Integer.MAX_VALUE, 0);
+    }
+
+    public void eval(String expression) {
+        encoder.eval(expression);
+    }
+
+    public void call(String function) {
+        encoder.call(function);
+    }
+
+    public void call(PreparedCall call) {
+        request(call);
+    }
+
+    public void request(RequestTemplate template) {
+        encoder.request(template);
+    }
+
+    public void insert(int space) {
+        encoder.insertOrReplace(Util.CODE_INSERT, space);
+    }
+
+    public void replace(int space) {
+        encoder.insertOrReplace(Util.CODE_REPLACE, space);
+    }
+
+    public void delete(int space, int index) {
+        encoder.delete(space, index);
+    }
+
+    public void update(int space, int index) {
+        encoder.update(space, index);
+    }
+
+    public void upsert(int space) {
+        encoder.upsert(space);
+    }
+
+    public void sql(String sqlQuery) {
+        encoder.sql(sqlQuery);
+    }
+
+    public void change(IntOp op, int field, int arg) {
+        encoder.change(op, field, arg);
+    }
+
+    public void change(IntOp op, int field, long arg) {
+        encoder.change(op, field, arg);
+    }
+
+    public void change(Op op, int field, @Nullable String arg) {
+        encoder.change(op, field, arg);
+    }
+
+    public void change(Op op, int field, byte[] arg) {
+        encoder.change(op, field, arg);
+    }
+
+    public void setNull() {
+        encoder.setNull();
+    }
+
+    public void setBoolean(boolean val) {
+        encoder.setBoolean(val);
+    }
+
+    public void setDouble(double val) {
+        encoder.setDouble(val);
+    }
+
+    public void setFloat(float val) {
+        encoder.setFloat(val);
+    }
+
+    public void setInt(int val) {
+        encoder.setInt(val);
+    }
+
+    public void setLong(long val) {
+        encoder.setLong(val);
+    }
+
+    public void setString(@Nullable String val) {
+        encoder.setString(val);
+    }
+
+    public void setBytes(byte[] bytes) {
+        encoder.setBytes(bytes);
+    }
+}
@@ -0,0 +1,163 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Nullable;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.TarantoolTimeoutException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes requests with a gathering write and reads small responses through one reused buffer, while big ones are
+ * read straight into the frame.
+ * <p>
+ * Buffers are heap ones: msgpack-core can not wrap direct buffers on Java 9+, so decoding from a direct buffer
+ * would need one more copy.
+ * <p>
+ * Channel is blocking without timeout. While a timeout is set it is switched to non-blocking mode with a selector
+ * waiting for it, which limits both reads and writes. The selector is used by one thread at a time, so the channel is
+ * back to blocking mode once the timeout is reset to 0 and may be read and written by different threads, like the
+ * reader thread and senders of {@link TarantoolAsyncClient}.
+ */
+final class ChannelTransport implements Transport {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private final SocketChannel channel;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    @Nullable
+    private Selector selector;
+    @Nullable
+    private SelectionKey key;
+    private int timeout;
+    private long deadline;
+
+    ChannelTransport(SocketChannel channel) throws IOException {
+        this.channel = channel;
+        channel.configureBlocking(true);
+        readBuffer.flip();
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws IOException {
+        int buffered = Math.min(length, readBuffer.remaining());
+        readBuffer.get(bytes, offset, buffered);
+        offset += buffered;
+        length -= buffered;
+        if (length == 0) {
+            return;
+        }
+        if (length >= READ_BUFFER_SIZE) {
+            // big frames are read straight into the destination
+            ByteBuffer target = ByteBuffer.wrap(bytes, offset, length);
+            while (target.hasRemaining()) {
+                read(target);
+            }
+            return;
+        }
+        readBuffer.clear();
+        while (readBuffer.position() < length) {
+            read(readBuffer);
+        }
+        readBuffer.flip();
+        readBuffer.get(bytes, offset, length);
+    }
+
+    private void read(ByteBuffer target) throws IOException {
+        int read;
+        while ((read = channel.read(target)) == 0 && selector != null) {
+            await(SelectionKey.OP_READ);
+        }
+        if (read < 0) {
+            throw new EOFException();
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer[] buffers, int length) throws IOException {
+        int first = 0;
+        while (first < length) {
+            if (channel.write(buffers, first, length - first) == 0 && selector != null) {
+                await(SelectionKey.OP_WRITE);
+            }
+            while (first < length && !buffers[first].hasRemaining()) {
+                first++;
+            }
+        }
+    }
+
+    private void await(int ops) throws IOException {
+        assert selector != null && key != null;
+        key.interestOps(ops);
+        long remaining = 0L;
+        if (timeout != 0) {
+            remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw timeoutException();
+            }
+        }
+        // select(0) waits without timeout
+        selector.select(timeout == 0 ? 0L : Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remaining)));
+        selector.selectedKeys().clear();
+    }
+
+    private TarantoolTimeoutException timeoutException() {
+        TarantoolTimeoutException exception =
+                new TarantoolTimeoutException("Request timed out after " + timeout + " ms");
+        try {
+            close();
+        } catch (IOException e) {
+            exception.addSuppressed(e);
+        }
+        return exception;
+    }
+
+    @Override
+    public void setTimeout(int millis) {
+        timeout = millis;
+        try {
+            if (millis == 0) {
+                if (selector != null) {
+                    // closing the selector deregisters the channel, only then it may be blocking again
+                    selector.close();
+                    selector = null;
+                    key = null;
+                    channel.configureBlocking(true);
+                }
+                return;
+            }
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+            if (selector == null) {
+                selector = Selector.open();
+                channel.configureBlocking(false);
+                key = channel.register(selector, 0);
+            }
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // every write goes straight to the channel
+    }
+
+    @Override
+    public boolean isClosed() {
+        return !channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            if (selector != null) {
+                selector.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Nullable;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Selected fields of all rows decoded into one primitive array per column instead of an object per row. Strings are
+ * kept as UTF-8 bytes of all rows in one array with offsets of every row. Fields that are nil or missing in the tuple
+ * are marked in per-column null bitmaps and have zero (or empty string) value in the arrays.
+ */
+public final class ColumnarResult {
+    private static final int INITIAL_STRING_BYTES = 1024;
+    // some VMs reserve header words in arrays
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+    private final Column[] columns;
+    private final ColumnData[] data;
+    private final int size;
+
+    /**
+     * Consumes all rows of the {@code result} left after the current one
+     */
+    public ColumnarResult(Result result, Column... columns) {
+        this.columns = columns.clone();
+        this.data = new ColumnData[columns.length];
+        int capacity = result.getSize();
+        // strings of all rows are not longer than the response, which is often smaller than the initial buffer
+        int stringBytes = Math.min(INITIAL_STRING_BYTES, result.getByteSize());
+        for (int i = 0; i < columns.length; i++) {
+            data[i] = new ColumnData(columns[i].type, capacity, stringBytes);
+        }
+        int row = 0;
+        while (result.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                decode(result, row, columns[i].field, data[i]);
+            }
+            row++;
+        }
+        size = row;
+    }
+
+    private static void decode(Result result, int row, int field, ColumnData column) {
+        boolean isNull = field >= result.currentSize() || result.isNull(field);
+        if (isNull) {
+            column.setNull(row);
+        }
+        switch (column.type) {
+            case LONG:
+                if (!isNull) {
+                    column.longs[row] = result.getLong(field);
+                }
+                break;
+            case INT:
+                if (!isNull) {
+                    column.ints[row] = result.getInt(field);
+                }
+                break;
+            case DOUBLE:
+                if (!isNull) {
+                    column.doubles[row] = result.getDouble(field);
+                }
+                break;
+            case STRING:
+                int start = column.offsets[row];
+                int end = start;
+                if (!isNull) {
+                    if (result instanceof AbstractResult) {
+                        AbstractResult frameResult = (AbstractResult) result;
+                        end = stringEnd(start, frameResult.getStringLength(field));
+                        column.ensureBytes(end);
+                        frameResult.copyString(field, column.bytes, start);
+                    } else {
+                        String string = result.getString(field);
+                        byte[] bytes = string == null
+                                ? ColumnData.NO_BYTES
+                                : string.getBytes(StandardCharsets.UTF_8);
+                        end = stringEnd(start, bytes.length);
+                        column.ensureBytes(end);
+                        System.arraycopy(bytes, 0, column.bytes, start, bytes.length);
+                    }
+                }
+                column.offsets[row + 1] = end;
+                break;
+            default:
+                throw new TarantoolException("Unknown column type " + column.type);
+        }
+    }
+
+    private static int stringEnd(int start, int length) {
+        if (length > MAX_ARRAY_SIZE - start) {
+            throw new TarantoolException("Strings of the column do not fit in " + MAX_ARRAY_SIZE + " bytes");
+        }
+        return start + length;
+    }
+
+    /**
+     * @return number of decoded rows, arrays of columns may be longer
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public Column getColumn(int column) {
+        return columns[column];
+    }
+
+    public boolean isNull(int column, int row) {
+        checkRow(row);
+        long[] nulls = data[column].nulls;
+        return nulls != null && (nulls[row >>> 6] & 1L << row) != 0;
+    }
+
+    /**
+     * @return bitmap with the bit {@code row % 64} of the element {@code row / 64} set for null rows, or null if the
+     * column has no nulls
+     */
+    @Nullable
+    public long[] getNulls(int column) {
+        return data[column].nulls;
+    }
+
+    public long[] getLongs(int column) {
+        return data(column, ColumnType.LONG).longs;
+    }
+
+    public int[] getInts(int column) {
+        return data(column, ColumnType.INT).ints;
+    }
+
+    public double[] getDoubles(int column) {
+        return data(column, ColumnType.DOUBLE).doubles;
+    }
+
+    /**
+     * @return UTF-8 bytes of all rows, row {@code i} is from {@code offsets[i]} inclusive to {@code offsets[i + 1]}
+     * exclusive, see {@link #getStringOffsets(int)}
+     */
+    public byte[] getStringBytes(int column) {
+        return data(column, ColumnType.STRING).bytes;
+    }
+
+    public int[] getStringOffsets(int column) {
+        return data(column, ColumnType.STRING).offsets;
+    }
+
+    @Nullable
+    public String getString(int column, int row) {
+        if (isNull(column, row)) {
+            return null;
+        }
+        ColumnData columnData = data(column, ColumnType.STRING);
+        int start = columnData.offsets[row];
+        return new String(columnData.bytes, start, columnData.offsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new ArrayIndexOutOfBoundsException(row);
+        }
+    }
+
+    private ColumnData data(int column, ColumnType type) {
+        ColumnData columnData = data[column];
+        if (columnData.type != type) {
+            throw new TarantoolException("Column " + column + " is " + columnData.type + ", not " + type);
+        }
+        return columnData;
+    }
+
+    public enum ColumnType {
+        LONG, INT, DOUBLE, STRING
+    }
+
+    /**
+     * Field of the tuple decoded into a column
+     */
+    public static final class Column {
+        private final int field;
+        private final ColumnType type;
+
+        public Column(int field, ColumnType type) {
+            if (field < 0) {
+                throw new IllegalArgumentException("Field index should not be negative, but got " + field);
+            }
+            this.field = field;
+            this.type = type;
+        }
+
+        public static Column longs(int field) {
+            return new Column(field, ColumnType.LONG);
+        }
+
+        public static Column ints(int field) {
+            return new Column(field, ColumnType.INT);
+        }
+
+        public static Column doubles(int field) {
+            return new Column(field, ColumnType.DOUBLE);
+        }
+
+        public static Column strings(int field) {
+            return new Column(field, ColumnType.STRING);
+        }
+
+        public int getField() {
+            return field;
+        }
+
+        public ColumnType getType() {
+            return type;
+        }
+    }
+
+    private static final class ColumnData {
+        private static final long[] NO_LONGS = new long[0];
+        private static final int[] NO_INTS = new int[0];
+        private static final double[] NO_DOUBLES = new double[0];
+        private static final byte[] NO_BYTES = new byte[0];
+
+        private final ColumnType type;
+        private final int capacity;
+        private final long[] longs;
+        private final int[] ints;
+        private final double[] doubles;
+        private final int[] offsets;
+        private byte[] bytes;
+        @Nullable
+        private long[] nulls;
+
+        ColumnData(ColumnType type, int capacity, int stringBytes) {
+            this.type = type;
+            this.capacity = capacity;
+            longs = type == ColumnType.LONG ? new long[capacity] : NO_LONGS;
+            ints = type == ColumnType.INT ? new int[capacity] : NO_INTS;
+            doubles = type == ColumnType.DOUBLE ? new double[capacity] : NO_DOUBLES;
+            offsets = type == ColumnType.STRING ? new int[Math.addExact(capacity, 1)] : NO_INTS;
+            bytes = type == ColumnType.STRING ? new byte[stringBytes] : NO_BYTES;
+        }
+
+        void setNull(int row) {
+            if (nulls == null) {
+                nulls = new long[(int) ((capacity + 63L) >>> 6)];
+            }
+            nulls[row >>> 6] |= 1L << row;
+        }
+
+        void ensureBytes(int length) {
+            if (bytes.length < length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(MAX_ARRAY_SIZE, Math.max(length, bytes.length * 2L)));
+            }
+        }
+    }
+}
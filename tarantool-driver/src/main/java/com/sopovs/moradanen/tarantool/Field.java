@@ -0,0 +1,19 @@
+package com.sopovs.moradanen.tarantool;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Field of the {@link TarantoolTuple} class. Indexes start from 0 and should have no gaps. Private fields are
+ * accessed via getters and setters named after the field.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Field {
+    /**
+     * @return zero-based index of the field in the tuple
+     */
+    int value();
+}
@@ -0,0 +1,151 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Nullable;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.TarantoolServerException;
+import com.sopovs.moradanen.tarantool.core.Util;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Handshake and response framing of IPROTO, shared by the clients of the driver and by clients over other transports
+ */
+public final class Iproto {
+    public static final int GREETING_SIZE = 128;
+
+    private Iproto() {
+    }
+
+    /**
+     * @param greeting 128 bytes of greeting, first line with version and second one with salt
+     */
+    public static String parseGreeting(byte[] greeting) {
+        String line = new String(greeting, 0, 64, StandardCharsets.US_ASCII);
+        String[] parts = line.split(" ");
+        if (parts.length < 2 || !"Tarantool".equals(parts[0])) {
+            throw new TarantoolException("Unexpected greeting " + line);
+        }
+        return parts[1];
+    }
+
+    /**
+     * @param greeting 128 bytes of greeting with the salt on the second line
+     * @return scramble of the configured password for {@link AsyncRequestBuilder#startAuth(String, byte[])} with the configured
+     * username, or {@code null} if the config has no credentials and no auth is needed
+     */
+    @Nullable
+    public static byte[] scramble(TarantoolConfig config, byte[] greeting) {
+        String password = config.getPassword();
+        if (config.getUsername() == null || password == null) {
+            return null;
+        }
+        final MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new TarantoolException(e);
+        }
+
+        byte[] step1 = sha1.digest(password.getBytes(StandardCharsets.UTF_8));
+
+        sha1.reset();
+        byte[] step2 = sha1.digest(step1);
+        sha1.reset();
+        // base64 encoded salt starts the second line of greeting
+        sha1.update(Base64.getDecoder().decode(Arrays.copyOfRange(greeting, 64, 108)), 0, 20);
+        sha1.update(step2);
+        byte[] step3 = sha1.digest();
+        for (int i = 0; i < 20; i++) {
+            step1[i] ^= step3[i];
+        }
+        return step1;
+    }
+
+    static int readFrameSize(Transport transport, byte[] sizePrefix) throws IOException {
+        transport.readFully(sizePrefix, 0, 5);
+        if (sizePrefix[0] != MessagePack.Code.UINT32) {
+            throw new TarantoolException("Unexpected response size prefix " + sizePrefix[0]);
+        }
+        return (sizePrefix[1] & 0xff) << 24 | (sizePrefix[2] & 0xff) << 16 | (sizePrefix[3] & 0xff) << 8
+                | sizePrefix[4] & 0xff;
+    }
+
+    /**
+     * Reads response header into {@code header}, which may be reused for every response of the connection
+     */
+    public static void unpackHeader(MessageUnpacker unpacker, Header header) throws IOException {
+        header.sync = -1;
+        header.code = 0;
+        int headerSize = unpacker.unpackMapHeader();
+        for (int i = 0; i < headerSize; i++) {
+            byte key = unpacker.unpackByte();
+            if (key == Util.KEY_SYNC) {
+                header.sync = unpacker.unpackInt();
+            } else if (key == Util.KEY_CODE) {
+                header.code = unpacker.unpackInt();
+            } else {
+                unpacker.unpackLong();
+            }
+        }
+        if (header.sync < 0) {
+            throw new TarantoolException("No sync in response header");
+        }
+    }
+
+    /**
+     * Decodes response body that follows the header read by {@link #unpackHeader(MessageUnpacker, Header)}
+     *
+     * @return result or {@code null} for empty body
+     * @throws TarantoolServerException with the error returned by the server
+     */
+    @Nullable
+    public static Result toResult(MessageUnpacker unpacker, Header header, byte[] frame, boolean slicedByteBuffers)
+            throws IOException {
+        int bodySize = unpacker.unpackMapHeader();
+        if (bodySize == 0) {
+            return null;
+        } else if (bodySize == 1) {
+            byte bodyKey = unpacker.unpackByte();
+            if (bodyKey == Util.KEY_DATA) {
+                return new ArrayResult(unpacker, frame, frame.length, slicedByteBuffers);
+            } else if (bodyKey == Util.KEY_ERROR) {
+                throw new TarantoolServerException(header.code & ~Util.CODE_ERROR, unpacker.unpackString());
+            } else {
+                throw new TarantoolException("Unknown body Key " + bodyKey);
+            }
+        } else if (bodySize == 2) {
+            return new SqlResult(unpacker, frame, frame.length, slicedByteBuffers);
+        } else {
+            throw new TarantoolException("Body size is " + bodySize);
+        }
+    }
+
+    /**
+     * Values of the response header
+     */
+    public static final class Header {
+        private int sync;
+        private int code;
+
+        /**
+         * @return sync of the request the response belongs to
+         */
+        public int getSync() {
+            return sync;
+        }
+
+        /**
+         * @return response code, {@link Util#CODE_ERROR} combined with the error code for errors
+         */
+        public int getCode() {
+            return code;
+        }
+    }
+}
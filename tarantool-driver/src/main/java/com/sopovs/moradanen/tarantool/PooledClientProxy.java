@@ -0,0 +1,478 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.*;
+
+import static com.sopovs.moradanen.tarantool.TarantoolPooledClientSource.CONNECTION_CLOSED;
+
+/**
+ * Borrowed client of a pool. Returns the client to the pool on {@link #close()} and throws it away once its connection
+ * has failed, after that the proxy is closed.
+ */
+abstract class PooledClientProxy implements TarantoolClient {
+    final TarantoolClient client;
+    boolean closed = false;
+
+    PooledClientProxy(TarantoolClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Called once when the client has failed with {@code e}, before the client is closed
+     */
+    abstract void discard(TarantoolException e);
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Throws the client away unless {@code e} is an error returned by the server, the connection is fine then
+     */
+    final TarantoolException closeOnException(TarantoolException e) {
+        if (e instanceof TarantoolServerException) {
+            return e;
+        }
+        closed = true;
+        discard(e);
+        try {
+            client.close();
+        } catch (TarantoolException closeException) {
+            e.addSuppressed(closeException);
+        }
+        return e;
+    }
+
+    @Override
+    public Result execute() {
+        checkClosed();
+        try {
+            return client.execute();
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public Result executeDetached() {
+        checkClosed();
+        try {
+            return client.executeDetached();
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public boolean isDetachedSupported() {
+        checkClosed();
+        return client.isDetachedSupported();
+    }
+
+    @Override
+    public void consumeLastResult() {
+        client.consumeLastResult();
+    }
+
+    @Override
+    public void addBatch() {
+        checkClosed();
+        try {
+            client.addBatch();
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public int[] executeBatchUpdate() {
+        checkClosed();
+        try {
+            return client.executeBatchUpdate();
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void executeBatch() {
+        checkClosed();
+        try {
+            client.executeBatch();
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public int space(String space) {
+        checkClosed();
+        try {
+            return client.space(space);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public int index(int space, String index) {
+        checkClosed();
+        try {
+            return client.index(space, index);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void select(int space, int index, int limit, int offset, Iter iterator) {
+        checkClosed();
+        try {
+            client.select(space, index, limit, offset, iterator);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void select(String space, int index, int limit, int offset) {
+        checkClosed();
+        try {
+            client.select(space, index, limit, offset);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void selectAll(int space, int limit, int offset) {
+        checkClosed();
+        try {
+            client.selectAll(space, limit, offset);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void selectAll(String space, int limit, int offset) {
+        checkClosed();
+        try {
+            client.selectAll(space, limit, offset);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void eval(String expression) {
+        checkClosed();
+        try {
+            client.eval(expression);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void call(String function) {
+        checkClosed();
+        try {
+            client.call(function);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void request(RequestTemplate template) {
+        checkClosed();
+        try {
+            client.request(template);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void insert(int space) {
+        checkClosed();
+        try {
+            client.insert(space);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void insert(String space) {
+        checkClosed();
+        try {
+            client.insert(space);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void replace(int space) {
+        checkClosed();
+        try {
+            client.replace(space);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void replace(String space) {
+        checkClosed();
+        try {
+            client.replace(space);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void delete(int space, int index) {
+        checkClosed();
+        try {
+            client.delete(space, index);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void delete(String space, int index) {
+        checkClosed();
+        try {
+            client.delete(space, index);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void update(int space, int index) {
+        checkClosed();
+        try {
+            client.update(space, index);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void upsert(int space) {
+        checkClosed();
+        try {
+            client.upsert(space);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void change(IntOp op, int field, int arg) {
+        checkClosed();
+        try {
+            client.change(op, field, arg);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void change(IntOp op, int field, long arg) {
+        checkClosed();
+        try {
+            client.change(op, field, arg);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+
+    }
+
+    @Override
+    public void change(Op op, int field, @Nullable String arg) {
+        checkClosed();
+        try {
+            client.change(op, field, arg);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+
+    }
+
+    @Override
+    public void change(Op op, int field, byte[] arg) {
+        checkClosed();
+        try {
+            client.change(op, field, arg);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void sql(String sqlQuery) {
+        checkClosed();
+        try {
+            client.sql(sqlQuery);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public long prepare(String sqlQuery) {
+        checkClosed();
+        try {
+            return client.prepare(sqlQuery);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Long getCachedStatementId(String sqlQuery) {
+        checkClosed();
+        return client.getCachedStatementId(sqlQuery);
+    }
+
+    @Override
+    public boolean isPrepareSupported() {
+        checkClosed();
+        return client.isPrepareSupported();
+    }
+
+    @Override
+    public void sql(long statementId) {
+        checkClosed();
+        try {
+            client.sql(statementId);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setTimeout(int millis) {
+        checkClosed();
+        client.setTimeout(millis);
+    }
+
+    @Override
+    public int executeUpdate() {
+        checkClosed();
+        try {
+            return client.executeUpdate();
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void ping() {
+        checkClosed();
+        try {
+            client.ping();
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setInt(int val) {
+        checkClosed();
+        try {
+            client.setInt(val);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setString(@Nullable String val) {
+        checkClosed();
+        try {
+            client.setString(val);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setNull() {
+        checkClosed();
+        try {
+            client.setNull();
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setBoolean(boolean val) {
+        checkClosed();
+        try {
+            client.setBoolean(val);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setDouble(double val) {
+        try {
+            client.setDouble(val);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setFloat(float val) {
+        checkClosed();
+        try {
+            client.setFloat(val);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setLong(long val) {
+        checkClosed();
+        try {
+            client.setLong(val);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public void setBytes(byte[] bytes) {
+        checkClosed();
+        try {
+            client.setBytes(bytes);
+        } catch (TarantoolException e) {
+            throw closeOnException(e);
+        }
+    }
+
+    @Override
+    public String getVersion() {
+        checkClosed();
+        return client.getVersion();
+    }
+
+    final void checkClosed() {
+        if (closed) {
+            throw new TarantoolException(CONNECTION_CLOSED);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.Util;
+import org.msgpack.core.MessageBufferPacker;
+
+import java.io.IOException;
+
+/**
+ * Call of the stored function with the request header and function name encoded once
+ */
+public final class PreparedCall extends RequestTemplate {
+    private final String function;
+
+    public PreparedCall(String function) {
+        super(RequestEncoder.CALL, encode(function));
+        this.function = function;
+    }
+
+    private static byte[] encode(String function) {
+        try (MessageBufferPacker packer = header(Util.CODE_CALL)) {
+            packer.packMapHeader(2);
+            packer.packInt(Util.KEY_FUNCTION);
+            packer.packString(function);
+            packer.packInt(Util.KEY_TUPLE);
+            return packer.toByteArray();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    public String getFunction() {
+        return function;
+    }
+}
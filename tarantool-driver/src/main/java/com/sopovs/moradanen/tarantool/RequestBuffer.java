@@ -0,0 +1,109 @@
+package com.sopovs.moradanen.tarantool;
+
+import org.msgpack.core.buffer.MessageBuffer;
+import org.msgpack.core.buffer.MessageBufferOutput;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable single array that {@link org.msgpack.core.MessagePacker} packs into directly, so the request bytes are
+ * written exactly once and headers whose values are known only at the end can be reserved and patched in place.
+ */
+final class RequestBuffer implements MessageBufferOutput {
+    private static final int INITIAL_SIZE = 8192;
+    private byte[] array = new byte[INITIAL_SIZE];
+    private ByteBuffer byteBuffer = ByteBuffer.wrap(array);
+    private int position = 0;
+
+    int position() {
+        return position;
+    }
+
+    /**
+     * Skips {@code size} bytes to be filled later with {@link #putByte(int, byte)} and {@link #putInt(int, int)}
+     *
+     * @return offset of the reserved bytes
+     */
+    int reserve(int size) {
+        ensureCapacity(size);
+        int offset = position;
+        position += size;
+        return offset;
+    }
+
+    void putByte(int offset, byte value) {
+        array[offset] = value;
+    }
+
+    void putInt(int offset, int value) {
+        array[offset] = (byte) (value >>> 24);
+        array[offset + 1] = (byte) (value >>> 16);
+        array[offset + 2] = (byte) (value >>> 8);
+        array[offset + 3] = (byte) value;
+    }
+
+    /**
+     * @return buffer with the written bytes from {@code start} to {@code end} between its position and limit
+     */
+    ByteBuffer toByteBuffer(int start, int end) {
+        byteBuffer.limit(end);
+        byteBuffer.position(start);
+        return byteBuffer;
+    }
+
+    /**
+     * @return copy of the written bytes from {@code start} to {@code end}
+     */
+    byte[] copy(int start, int end) {
+        return Arrays.copyOfRange(array, start, end);
+    }
+
+    /**
+     * Drops the first {@code length} bytes moving the rest to the beginning
+     */
+    void discard(int length) {
+        System.arraycopy(array, length, array, 0, position - length);
+        position -= length;
+    }
+
+    private void ensureCapacity(int size) {
+        if (array.length - position < size) {
+            array = Arrays.copyOf(array, Math.max(array.length * 2, position + size));
+            byteBuffer = ByteBuffer.wrap(array);
+        }
+    }
+
+    @Override
+    public MessageBuffer next(int minimumSize) {
+        ensureCapacity(minimumSize);
+        return MessageBuffer.wrap(array, position, array.length - position);
+    }
+
+    @Override
+    public void writeBuffer(int length) {
+        position += length;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(buffer, offset, array, position, length);
+        position += length;
+    }
+
+    @Override
+    public void add(byte[] buffer, int offset, int length) {
+        write(buffer, offset, length);
+    }
+
+    @Override
+    public void flush() {
+        // everything is already in the array
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,673 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.*;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.sopovs.moradanen.tarantool.TarantoolClientImpl.*;
+
+/**
+ * Encodes requests of one connection into a reused buffer and writes complete frames to {@link RequestOutput}.
+ * Building requests is not thread-safe, clients over other transports get to it through {@link AsyncRequestBuilder}.
+ */
+final class RequestEncoder {
+    static final byte INSERT = 1;
+    private static final byte UPSERT_TUPLE = 2;
+    private static final byte UPSERT_OPS = 3;
+    private static final byte EVAL = 4;
+    static final byte SELECT = 5;
+    static final byte DELETE = 6;
+    private static final byte UPDATE_KEY = 7;
+    private static final byte UPDATE_TUPLE = 8;
+    private static final byte SQL = 9;
+    static final byte CALL = 10;
+    private static final int FLUSH_SIZE = 65536;
+    private final RequestBuffer buffer = new RequestBuffer();
+    private final MessagePacker packer = MessagePack.newDefaultPacker(buffer);
+    private final ByteBuffer[] frame = new ByteBuffer[1];
+    private int frameStart;
+    private int frameEnd;
+    // already written bytes at the start of the buffer, the last frame kept for resend
+    private int sent;
+    private int lastFrameStart;
+    // offsets of fixed uint32 values from the frame start in frames with schema id, -1 for other frames
+    private int syncOffset = -1;
+    private int schemaIdOffset = -1;
+    private int spaceOffset = -1;
+    private int lastSyncOffset = -1;
+    private int lastSchemaIdOffset = -1;
+    private int lastSpaceOffset = -1;
+    private int schemaId;
+    private int argumentsStart;
+    private int querySize = 0;
+    // wraps to 0 instead of going negative, sync is an unsigned value limited to int by the clients
+    private int sync;
+    // source of syncs shared by the encoders of one connection, null if this encoder is the only one
+    @Nullable
+    private final AtomicInteger syncs;
+    private byte currentQuery = 0;
+
+    private static int currentQueryToQueryCode(byte currentQuery) {
+        switch (currentQuery) {
+            case EVAL:
+            case CALL:
+            case INSERT:
+            case UPDATE_TUPLE:
+            case UPSERT_TUPLE:
+                return Util.KEY_TUPLE;
+            case SELECT:
+            case DELETE:
+            case UPDATE_KEY:
+                return Util.KEY_KEY;
+            case UPSERT_OPS:
+                return Util.KEY_UPSERT_OPS;
+            case SQL:
+                return Util.KEY_SQL_BIND;
+            case 0:
+            default:
+                throw new TarantoolException(EXECUTE_ABSENT_EXCEPTION);
+        }
+    }
+
+    RequestEncoder() {
+        syncs = null;
+    }
+
+    /**
+     * @param sync last used sync, the next request gets the following one
+     */
+    RequestEncoder(int sync) {
+        this.sync = sync;
+        syncs = null;
+    }
+
+    /**
+     * @param syncs last used sync of the connection, shared with other encoders building requests in other threads
+     */
+    RequestEncoder(AtomicInteger syncs) {
+        this.syncs = syncs;
+    }
+
+    int getSync() {
+        return sync;
+    }
+
+    /**
+     * Schema id sent with the request on a space started right after, so the server rejects it with
+     * {@link Util#ER_WRONG_SCHEMA_VERSION} if the schema has changed since the space id has been looked up
+     */
+    void checkSchema(int schemaId) {
+        this.schemaId = schemaId;
+    }
+
+    private int nextSync() {
+        sync = syncs == null ? (sync + 1) & Integer.MAX_VALUE : syncs.updateAndGet(s -> (s + 1) & Integer.MAX_VALUE);
+        return sync;
+    }
+
+    /**
+     * @return size of the finished request in bytes
+     */
+    int finishQueryWithArguments(RequestOutput output) {
+        if (currentQuery == 0) {
+            throw new TarantoolException(EXECUTE_ABSENT_EXCEPTION);
+        }
+        try {
+            finishArguments();
+            currentQuery = 0;
+            return finishQuery(output);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    private void startArguments() throws IOException {
+        packer.packInt(currentQueryToQueryCode(currentQuery));
+        reserveArguments();
+    }
+
+    private void reserveArguments() throws IOException {
+        packer.flush();
+        // array size is patched in finishArguments
+        argumentsStart = buffer.reserve(5);
+        querySize = 0;
+    }
+
+    private void finishArguments() throws IOException {
+        packer.flush();
+        buffer.putByte(argumentsStart, MessagePack.Code.ARRAY32);
+        buffer.putInt(argumentsStart + 1, querySize);
+        querySize = 0;
+    }
+
+    /**
+     * Completes the frame in the buffer, which is sent once it is big enough or on {@link #flush(RequestOutput)}
+     *
+     * @return size of the frame in bytes
+     */
+    int finishQuery(RequestOutput output) throws IOException {
+        packer.flush();
+        int size = buffer.position() - frameStart;
+        buffer.putByte(frameStart, MessagePack.Code.UINT32);
+        buffer.putInt(frameStart + 1, size - 5);
+        frameEnd = buffer.position();
+        lastFrameStart = frameStart;
+        lastSyncOffset = syncOffset;
+        lastSchemaIdOffset = schemaIdOffset;
+        lastSpaceOffset = spaceOffset;
+        if (frameEnd >= FLUSH_SIZE) {
+            write(output);
+        }
+        return size;
+    }
+
+    void flush(RequestOutput output) throws IOException {
+        if (frameEnd > sent) {
+            write(output);
+        }
+        output.flush();
+    }
+
+    /**
+     * @return copy of the last request if it has been sent with schema id by {@link #checkSchema(int)} and no request
+     * has been started since, {@code null} otherwise
+     */
+    @Nullable
+    CheckedFrame lastCheckedFrame() {
+        if (sent == 0 || frameEnd != sent || lastSchemaIdOffset < 0) {
+            return null;
+        }
+        return new CheckedFrame(buffer.copy(lastFrameStart, frameEnd), lastSyncOffset, lastSchemaIdOffset,
+                lastSpaceOffset);
+    }
+
+    /**
+     * Sends the request again with the space id looked up in the current schema and the next sync
+     */
+    void resend(RequestOutput output, CheckedFrame checked, int space, int schemaId) throws IOException {
+        checked.putInt(checked.syncOffset, nextSync());
+        checked.putInt(checked.schemaIdOffset, schemaId);
+        checked.putInt(checked.spaceOffset, space);
+        frame[0] = ByteBuffer.wrap(checked.bytes);
+        output.write(frame, 1);
+        output.flush();
+    }
+
+    private void write(RequestOutput output) throws IOException {
+        frame[0] = buffer.toByteBuffer(sent, frameEnd);
+        output.write(frame, 1);
+        // next request may be already started, keep it, and the last frame too if it may be resent
+        packer.flush();
+        int written = lastSchemaIdOffset < 0 ? frameEnd : lastFrameStart;
+        buffer.discard(written);
+        frameStart -= written;
+        argumentsStart -= written;
+        lastFrameStart -= written;
+        frameEnd -= written;
+        sent = frameEnd;
+    }
+
+    private void startFrame() throws IOException {
+        packer.flush();
+        if (sent > 0) {
+            // the kept frame can not be resent after the next request
+            buffer.discard(sent);
+            frameEnd -= sent;
+            sent = 0;
+            lastSchemaIdOffset = -1;
+        }
+        // frame size is patched in finishQuery
+        frameStart = buffer.reserve(5);
+        syncOffset = -1;
+        schemaIdOffset = -1;
+        spaceOffset = -1;
+    }
+
+    private void writeCode(int code) throws IOException {
+        // schema id is sent only with the request on the space it has been set for
+        schemaId = 0;
+        startFrame();
+        packer.packMapHeader(2);
+        packer.packInt(Util.KEY_CODE);
+        packer.packInt(code);
+        packer.packInt(Util.KEY_SYNC);
+        packer.packInt(nextSync());
+    }
+
+    /**
+     * Starts request on a space, which is sent with the schema id if it has been set by {@link #checkSchema(int)}
+     */
+    private void writeSpaceCode(int code) throws IOException {
+        if (schemaId == 0) {
+            writeCode(code);
+            return;
+        }
+        startFrame();
+        // values that change on resend are fixed uint32 patched in place
+        packer.packMapHeader(3);
+        packer.packInt(Util.KEY_CODE);
+        packer.packInt(code);
+        packer.packInt(Util.KEY_SYNC);
+        syncOffset = packUint32(nextSync());
+        packer.packInt(Util.KEY_SCHEMA_ID);
+        schemaIdOffset = packUint32(schemaId);
+        schemaId = 0;
+    }
+
+    private void packSpace(int space) throws IOException {
+        packer.packInt(Util.KEY_SPACE);
+        if (schemaIdOffset < 0) {
+            packer.packInt(space);
+        } else {
+            spaceOffset = packUint32(space);
+        }
+    }
+
+    /**
+     * @return offset of the value from the frame start
+     */
+    private int packUint32(int value) throws IOException {
+        packer.flush();
+        int offset = buffer.reserve(5);
+        buffer.putByte(offset, MessagePack.Code.UINT32);
+        buffer.putInt(offset + 1, value);
+        return offset + 1 - frameStart;
+    }
+
+    private void preActionCheck() {
+        if (currentQuery != 0) {
+            // schema id is not sent with the next request, which may not use the space id looked up for this one
+            schemaId = 0;
+            throw new TarantoolException(PRE_ACTION_EXCEPTION);
+        }
+    }
+
+    private void preSetCheck() {
+        if (currentQuery == 0) {
+            throw new TarantoolException(PRE_SET_EXCEPTION);
+        }
+    }
+
+    void auth(String login, byte[] scramble) throws IOException {
+        writeCode(Util.CODE_AUTH);
+        packer.packMapHeader(2);
+        packer.packInt(Util.KEY_USER_NAME);
+        packer.packString(login);
+        packer.packInt(Util.KEY_TUPLE);
+        packer.packArrayHeader(2);
+        packer.packString("chap-sha1");
+        packer.packBinaryHeader(scramble.length);
+        packer.addPayload(scramble);
+    }
+
+    void ping() throws IOException {
+        writeCode(Util.CODE_PING);
+    }
+
+    void eval(String expression) {
+        preActionCheck();
+        currentQuery = EVAL;
+        try {
+            writeCode(Util.CODE_EVAL);
+            packer.packMapHeader(2);
+            packer.packInt(Util.KEY_EXPRESSION);
+            packer.packString(expression);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void call(String function) {
+        preActionCheck();
+        currentQuery = CALL;
+        try {
+            writeCode(Util.CODE_CALL);
+            packer.packMapHeader(2);
+            packer.packInt(Util.KEY_FUNCTION);
+            packer.packString(function);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void request(RequestTemplate template) {
+        preActionCheck();
+        currentQuery = template.getQuery();
+        try {
+            startFrame();
+            byte[] prefix = template.getPrefix();
+            buffer.write(prefix, 0, prefix.length);
+            buffer.putInt(frameStart + 5 + RequestTemplate.SYNC_OFFSET, nextSync());
+            reserveArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void prepare(String sqlQuery) throws IOException {
+        preActionCheck();
+        writeCode(Util.CODE_PREPARE);
+        packer.packMapHeader(1);
+        packer.packInt(Util.KEY_SQL_TEXT);
+        packer.packString(sqlQuery);
+    }
+
+    void unprepare(long statementId) throws IOException {
+        preActionCheck();
+        writeCode(Util.CODE_PREPARE);
+        packer.packMapHeader(1);
+        packer.packInt(Util.KEY_STMT_ID);
+        packer.packLong(statementId);
+    }
+
+    void select(int space, int index, int limit, int offset, Iter iterator) {
+        selectInternal(6, space, limit, offset, iterator);
+
+        try {
+            packer.packInt(Util.KEY_INDEX);
+            packer.packInt(index);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void selectAll(int space, int limit, int offset) {
+        selectInternal(5, space, limit, offset, Iter.ALL);
+        try {
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    private void selectInternal(int headSize, int space, int limit, int offset, Iter iterator) {
+        preActionCheck();
+        currentQuery = SELECT;
+        try {
+            writeSpaceCode(Util.CODE_SELECT);
+            if (offset == 0) {
+                headSize--;
+            }
+            if (iterator == Iter.EQ) {
+                headSize--;
+            }
+
+            packer.packMapHeader(headSize);
+            packSpace(space);
+
+            if (iterator != Iter.EQ) {
+                packer.packInt(Util.KEY_ITERATOR);
+                packer.packInt(iterator.getValue());
+            }
+            packer.packInt(Util.KEY_LIMIT);
+            packer.packInt(limit);
+            if (offset != 0) {
+                packer.packInt(Util.KEY_OFFSET);
+                packer.packInt(offset);
+            }
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void insertOrReplace(int code, int space) {
+        preActionCheck();
+        currentQuery = INSERT;
+        try {
+            writeSpaceCode(code);
+            packer.packMapHeader(2);
+            packSpace(space);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void delete(int space, int index) {
+        preActionCheck();
+        currentQuery = DELETE;
+        try {
+            writeSpaceCode(Util.CODE_DELETE);
+            packer.packMapHeader(3);
+            packSpace(space);
+            packer.packInt(Util.KEY_INDEX);
+            packer.packInt(index);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void update(int space, int index) {
+        preActionCheck();
+        currentQuery = UPDATE_KEY;
+        try {
+            writeSpaceCode(Util.CODE_UPDATE);
+            packer.packMapHeader(4);
+            packSpace(space);
+            packer.packInt(Util.KEY_INDEX);
+            packer.packInt(index);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void upsert(int space) {
+        preActionCheck();
+        currentQuery = UPSERT_TUPLE;
+        try {
+            writeSpaceCode(Util.CODE_UPSERT);
+            packer.packMapHeader(3);
+            packSpace(space);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void sql(String sqlQuery) {
+        preActionCheck();
+        currentQuery = SQL;
+
+        try {
+            writeCode(Util.CODE_EXECUTE);
+            packer.packMapHeader(2);
+            packer.packInt(Util.KEY_SQL_TEXT);
+            packer.packString(sqlQuery);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void sql(long statementId) {
+        preActionCheck();
+        currentQuery = SQL;
+
+        try {
+            writeCode(Util.CODE_EXECUTE);
+            packer.packMapHeader(2);
+            packer.packInt(Util.KEY_STMT_ID);
+            packer.packLong(statementId);
+            startArguments();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    private void preChange(String op, int field) throws IOException {
+        if (currentQuery == UPDATE_KEY) {
+            finishArguments();
+            currentQuery = UPDATE_TUPLE;
+            startArguments();
+        } else if (currentQuery == UPSERT_TUPLE) {
+            finishArguments();
+            currentQuery = UPSERT_OPS;
+            startArguments();
+        } else if (currentQuery != UPDATE_TUPLE && currentQuery != UPSERT_OPS) {
+            throw new TarantoolException(PRE_CHANGE_EXCEPTION);
+        }
+        querySize++;
+        packer.packArrayHeader(3);
+        packer.packString(op);
+        packer.packInt(field);
+    }
+
+    void change(IntOp op, int field, int arg) {
+        try {
+            preChange(op.getVal(), field);
+            packer.packInt(arg);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void change(IntOp op, int field, long arg) {
+        try {
+            preChange(op.getVal(), field);
+            packer.packLong(arg);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void change(Op op, int field, @Nullable String arg) {
+        try {
+            preChange(op.getVal(), field);
+            if (arg == null) {
+                packer.packNil();
+            } else {
+                packer.packString(arg);
+            }
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void change(Op op, int field, byte[] bytes) {
+        try {
+            preChange(op.getVal(), field);
+            packer.packBinaryHeader(bytes.length);
+            packer.writePayload(bytes);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void setNull() {
+        preSetCheck();
+        try {
+            querySize++;
+            packer.packNil();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void setBytes(byte[] bytes) {
+        preSetCheck();
+        try {
+            querySize++;
+            packer.packBinaryHeader(bytes.length);
+            packer.writePayload(bytes);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void setLong(long val) {
+        preSetCheck();
+        try {
+            querySize++;
+            packer.packLong(val);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void setBoolean(boolean val) {
+        preSetCheck();
+        try {
+            querySize++;
+            packer.packBoolean(val);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void setDouble(double val) {
+        preSetCheck();
+        try {
+            querySize++;
+            packer.packDouble(val);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void setFloat(float val) {
+        preSetCheck();
+        try {
+            querySize++;
+            packer.packFloat(val);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void setInt(int val) {
+        preSetCheck();
+        try {
+            querySize++;
+            packer.packInt(val);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    void setString(@Nullable String val) {
+        preSetCheck();
+        try {
+            querySize++;
+            if (val == null) {
+                packer.packNil();
+            } else {
+                packer.packString(val);
+            }
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    /**
+     * Copy of the request sent with schema id, to be sent again with the values looked up in the current schema
+     */
+    static final class CheckedFrame {
+        private final byte[] bytes;
+        private final int syncOffset;
+        private final int schemaIdOffset;
+        private final int spaceOffset;
+
+        CheckedFrame(byte[] bytes, int syncOffset, int schemaIdOffset, int spaceOffset) {
+            this.bytes = bytes;
+            this.syncOffset = syncOffset;
+            this.schemaIdOffset = schemaIdOffset;
+            this.spaceOffset = spaceOffset;
+        }
+
+        private void putInt(int offset, int value) {
+            bytes[offset] = (byte) (value >>> 24);
+            bytes[offset + 1] = (byte) (value >>> 16);
+            bytes[offset + 2] = (byte) (value >>> 8);
+            bytes[offset + 3] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.sopovs.moradanen.tarantool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Destination of requests encoded by the clients, see {@link AsyncRequestBuilder}
+ */
+public interface RequestOutput {
+
+    /**
+     * Writes remaining bytes of the first {@code length} buffers, possibly buffering them until {@link #flush()}
+     */
+    void write(ByteBuffer[] buffers, int length) throws IOException;
+
+    void flush() throws IOException;
+}
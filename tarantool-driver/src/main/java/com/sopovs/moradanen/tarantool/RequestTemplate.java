@@ -0,0 +1,110 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Iter;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.Util;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import java.io.IOException;
+
+/**
+ * Request with everything but sync and arguments encoded once. Sync is encoded as fixed uint32 and patched in place,
+ * so {@link TarantoolClient#request(RequestTemplate)} only copies the bytes and the same instance may be used by any
+ * number of clients. Arguments (key or tuple) are set afterwards as usual.
+ */
+public class RequestTemplate {
+    /**
+     * Offset of the sync value in the prefix - after header map, code key and value, sync key and uint32 marker
+     */
+    static final int SYNC_OFFSET = 5;
+    private final byte query;
+    private final byte[] prefix;
+
+    RequestTemplate(byte query, byte[] prefix) {
+        this.query = query;
+        this.prefix = prefix;
+    }
+
+    public static RequestTemplate select(int space, int index, int limit, Iter iterator) {
+        try (MessageBufferPacker packer = header(Util.CODE_SELECT)) {
+            packer.packMapHeader(iterator == Iter.EQ ? 4 : 5);
+            packer.packInt(Util.KEY_SPACE);
+            packer.packInt(space);
+            packer.packInt(Util.KEY_INDEX);
+            packer.packInt(index);
+            if (iterator != Iter.EQ) {
+                packer.packInt(Util.KEY_ITERATOR);
+                packer.packInt(iterator.getValue());
+            }
+            packer.packInt(Util.KEY_LIMIT);
+            packer.packInt(limit);
+            packer.packInt(Util.KEY_KEY);
+            return new RequestTemplate(RequestEncoder.SELECT, packer.toByteArray());
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    public static RequestTemplate select(int space, int index) {
+        return select(space, index, Integer.MAX_VALUE, Iter.EQ);
+    }
+
+    public static RequestTemplate insert(int space) {
+        return insertOrReplace(Util.CODE_INSERT, space);
+    }
+
+    public static RequestTemplate replace(int space) {
+        return insertOrReplace(Util.CODE_REPLACE, space);
+    }
+
+    private static RequestTemplate insertOrReplace(int code, int space) {
+        try (MessageBufferPacker packer = header(code)) {
+            packer.packMapHeader(2);
+            packer.packInt(Util.KEY_SPACE);
+            packer.packInt(space);
+            packer.packInt(Util.KEY_TUPLE);
+            return new RequestTemplate(RequestEncoder.INSERT, packer.toByteArray());
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    public static RequestTemplate delete(int space, int index) {
+        try (MessageBufferPacker packer = header(Util.CODE_DELETE)) {
+            packer.packMapHeader(3);
+            packer.packInt(Util.KEY_SPACE);
+            packer.packInt(space);
+            packer.packInt(Util.KEY_INDEX);
+            packer.packInt(index);
+            packer.packInt(Util.KEY_KEY);
+            return new RequestTemplate(RequestEncoder.DELETE, packer.toByteArray());
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    /**
+     * @return packer with the header written, body is expected to end with the key of the arguments array
+     */
+    static MessageBufferPacker header(int code) throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packMapHeader(2);
+        packer.packInt(Util.KEY_CODE);
+        packer.packInt(code);
+        packer.packInt(Util.KEY_SYNC);
+        packer.writePayload(new byte[]{MessagePack.Code.UINT32, 0, 0, 0, 0});
+        return packer;
+    }
+
+    byte getQuery() {
+        return query;
+    }
+
+    /**
+     * @return header and body of the request up to the arguments array
+     */
+    byte[] getPrefix() {
+        return prefix;
+    }
+}
@@ -9,6 +9,11 @@ public interface Result {
 
     int getSize();
 
+    /**
+     * @return size of the response frame (header and body) in bytes, without the size prefix
+     */
+    int getByteSize();
+
     boolean hasNext();
 
     boolean isNull(int index);
@@ -0,0 +1,102 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of spaces and indexes by name. Every response carries the schema id of the server and the cache is cleared
+ * once a different one is seen. Thread-safe, all clients created with the same {@link TarantoolConfig} share one.
+ * <p>
+ * Request built from a space name, like {@link TarantoolClient#insert(String)}, is sent with the schema id of the
+ * lookup, so the server rejects it if the schema has changed in between. The rejection clears the cache and a single
+ * request is sent again with the space looked up in the new schema. Request in a batch is not, the rejection fails the
+ * batch with {@link com.sopovs.moradanen.tarantool.core.TarantoolServerException}. Requests built from ids are sent
+ * without schema id.
+ */
+public final class SchemaCache {
+    private static final long UNKNOWN = -1L;
+    private final Map<String, Integer> spaces = new ConcurrentHashMap<>();
+    private final Map<IndexKey, Integer> indexes = new ConcurrentHashMap<>();
+    private volatile long schemaId = UNKNOWN;
+
+    /**
+     * Called with schema id from the header of every response
+     */
+    void schemaId(long schemaId) {
+        if (this.schemaId != schemaId) {
+            synchronized (this) {
+                if (this.schemaId != schemaId) {
+                    spaces.clear();
+                    indexes.clear();
+                    this.schemaId = schemaId;
+                }
+            }
+        }
+    }
+
+    @Nullable
+    Integer space(String name) {
+        return spaces.get(name);
+    }
+
+    @Nullable
+    Integer index(int space, String name) {
+        return indexes.get(new IndexKey(space, name));
+    }
+
+    /**
+     * @param schemaId schema id of the response with the space, ignored if the schema has changed since
+     */
+    void putSpace(String name, int space, long schemaId) {
+        synchronized (this) {
+            if (this.schemaId == schemaId) {
+                spaces.put(name, space);
+            }
+        }
+    }
+
+    void putIndex(int space, String name, int index, long schemaId) {
+        synchronized (this) {
+            if (this.schemaId == schemaId) {
+                indexes.put(new IndexKey(space, name), index);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            spaces.clear();
+            indexes.clear();
+            schemaId = UNKNOWN;
+        }
+    }
+
+    private static final class IndexKey {
+        private final int space;
+        private final String name;
+
+        IndexKey(int space, String name) {
+            this.space = space;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            IndexKey indexKey = (IndexKey) o;
+            return space == indexKey.space && name.equals(indexKey.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * space + name.hashCode();
+        }
+    }
+}
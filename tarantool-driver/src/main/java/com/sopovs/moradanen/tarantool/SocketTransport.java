@@ -0,0 +1,115 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.TarantoolTimeoutException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+final class SocketTransport implements Transport {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private int timeout;
+    private long deadline;
+    private int socketTimeout;
+
+    SocketTransport(Socket socket) {
+        this.socket = socket;
+        try {
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new BufferedOutputStream(socket.getOutputStream());
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws IOException {
+        if (timeout == 0) {
+            if (socketTimeout != 0) {
+                setSocketTimeout(0);
+            }
+            in.readFully(bytes, offset, length);
+            return;
+        }
+        while (length > 0) {
+            // SO_TIMEOUT limits each read, so it is shortened to what is left of the whole timeout
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw timeoutException();
+            }
+            setSocketTimeout((int) Math.max(1L, TimeUnit.NANOSECONDS.toMillis(remaining)));
+            int read;
+            try {
+                read = in.read(bytes, offset, length);
+            } catch (SocketTimeoutException e) {
+                throw timeoutException();
+            }
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+            length -= read;
+        }
+    }
+
+    private void setSocketTimeout(int millis) throws IOException {
+        socket.setSoTimeout(millis);
+        socketTimeout = millis;
+    }
+
+    private TarantoolTimeoutException timeoutException() {
+        TarantoolTimeoutException exception =
+                new TarantoolTimeoutException("Request timed out after " + timeout + " ms");
+        try {
+            socket.close();
+        } catch (IOException e) {
+            exception.addSuppressed(e);
+        }
+        return exception;
+    }
+
+    /**
+     * Only reads are limited, blocking socket has no write timeout
+     */
+    @Override
+    public void setTimeout(int millis) {
+        timeout = millis;
+        if (millis != 0) {
+            deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer[] buffers, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            ByteBuffer buffer = buffers[i];
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return socket.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -14,13 +14,17 @@ public class SqlResult extends AbstractResult {
     private final Map<String, Integer> fieldNamesView = Collections.unmodifiableMap(fieldNames);
     private final int size;
 
-    SqlResult(MessageUnpacker unpacker) {
-        super(unpacker);
+    /**
+     * @param unpacker reading {@code frame} from its beginning, positioned at the body metadata
+     */
+    SqlResult(MessageUnpacker unpacker, byte[] frame, int byteSize, boolean slicedByteBuffers) {
+        super(frame, byteSize, slicedByteBuffers);
         try {
             size = getSize(unpacker);
         } catch (IOException e) {
             throw new TarantoolException(e);
         }
+        rowsStart(Math.toIntExact(unpacker.getTotalReadBytes()));
     }
 
     @Override
@@ -0,0 +1,198 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.*;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.sopovs.moradanen.tarantool.TarantoolClientImpl.createSocket;
+import static com.sopovs.moradanen.tarantool.TarantoolClientImpl.socketConfig;
+
+/**
+ * Pipelining client - every {@link #execute()} sends request right away and returns future that is completed by
+ * the reader thread when response with the same sync arrives. Many requests may be in flight on one connection.
+ * <p>
+ * Requests are built the same way as with {@link TarantoolClient} and the building is not thread-safe, while
+ * returned futures may be completed and consumed in any thread.
+ */
+public class TarantoolAsyncClient extends AsyncRequestBuilder implements Closeable {
+    static final String CONNECTION_CLOSED = "Connection closed";
+    private final String version;
+    private final Transport transport;
+    private final byte[] sizePrefix = new byte[5];
+    // only used by the reader thread once connected
+    private final Iproto.Header header = new Iproto.Header();
+    private final Map<Integer, CompletableFuture<Result>> pending = new ConcurrentHashMap<>();
+    private final Thread reader;
+    private final boolean slicedByteBuffers;
+    private volatile boolean closed = false;
+
+    public TarantoolAsyncClient(TarantoolConfig config) {
+        this(Transport.connect(config), config);
+    }
+
+    public TarantoolAsyncClient(@Nullable String host, int port, @Nullable String login, @Nullable String password) {
+        this(createSocket(host, port), login, password);
+    }
+
+    public TarantoolAsyncClient(Socket socket, @Nullable String login, @Nullable String password) {
+        this(new SocketTransport(socket), socketConfig(socket, login, password));
+    }
+
+    TarantoolAsyncClient(Transport transport, TarantoolConfig config) {
+        this.transport = transport;
+        slicedByteBuffers = config.isSlicedByteBuffers();
+        try {
+            transport.setTimeout(config.getConnectTimeout());
+            version = connect(config);
+            // responses are awaited by the reader thread without timeout
+            transport.setTimeout(0);
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+        reader = new Thread(this::readResponses, "tarantool-async-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private String connect(TarantoolConfig config) throws IOException {
+        byte[] greeting = new byte[Iproto.GREETING_SIZE];
+        transport.readFully(greeting, 0, greeting.length);
+        String version = Iproto.parseGreeting(greeting);
+        byte[] scramble = Iproto.scramble(config, greeting);
+        if (scramble != null) {
+            startAuth(config.getUsername(), scramble);
+            writeRequest(transport, false);
+            MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(readFrame());
+            Iproto.unpackHeader(unpacker, header);
+            int bodySize = unpacker.unpackMapHeader();
+            if (bodySize == 1) {
+                byte bodyKey = unpacker.unpackByte();
+                if (bodyKey == Util.KEY_ERROR) {
+                    throw new TarantoolAuthException(unpacker.unpackString());
+                } else {
+                    throw new TarantoolException("Unknown body Key " + bodyKey);
+                }
+            }
+            if (bodySize > 1) {
+                throw new TarantoolException("Body size " + bodySize + " for auth");
+            }
+        }
+        return version;
+    }
+
+    private byte[] readFrame() throws IOException {
+        byte[] frame = new byte[Iproto.readFrameSize(transport, sizePrefix)];
+        transport.readFully(frame, 0, frame.length);
+        return frame;
+    }
+
+    private void readResponses() {
+        Exception cause;
+        try {
+            while (!closed) {
+                byte[] frame = readFrame();
+                MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(frame);
+                Iproto.unpackHeader(unpacker, header);
+                int sync = header.getSync();
+                CompletableFuture<Result> future = pending.remove(sync);
+                if (future == null) {
+                    throw new TarantoolException("Unexpected response with sync " + sync);
+                }
+                try {
+                    future.complete(Iproto.toResult(unpacker, header, frame, slicedByteBuffers));
+                } catch (TarantoolException | IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+            cause = new IOException(CONNECTION_CLOSED);
+        } catch (IOException | TarantoolException e) {
+            cause = e;
+        }
+        // also when close() stops the loop between two responses, requests in flight get no response anymore
+        failPending(cause);
+    }
+
+    private void failPending(Exception cause) {
+        closeTransport();
+        for (Integer sync : pending.keySet()) {
+            CompletableFuture<Result> future = pending.remove(sync);
+            if (future != null) {
+                future.completeExceptionally(new TarantoolException(CONNECTION_CLOSED, cause));
+            }
+        }
+    }
+
+    private CompletableFuture<Result> send(boolean withArguments) {
+        if (closed) {
+            throw new TarantoolException(CONNECTION_CLOSED);
+        }
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        // sync is assigned while building, register before any byte may reach the socket
+        pending.put(sync(), future);
+        try {
+            writeRequest(transport, withArguments);
+        } catch (IOException e) {
+            pending.remove(sync());
+            failPending(e);
+            throw new TarantoolException(e);
+        } catch (TarantoolException e) {
+            pending.remove(sync());
+            if (e.getCause() instanceof IOException) {
+                failPending(e);
+            }
+            throw e;
+        }
+        if (!reader.isAlive()) {
+            // reader may have died between the check above and the registration of this future
+            failPending(new IOException(CONNECTION_CLOSED));
+        }
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Result> execute() {
+        return send(true);
+    }
+
+    public CompletableFuture<Void> ping() {
+        try {
+            startPing();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+        return send(false).thenApply(result -> null);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public boolean isClosed() {
+        return closed || transport.isClosed();
+    }
+
+    private void closeTransport() {
+        try {
+            transport.close();
+        } catch (IOException e) {
+            // reader is going down anyway
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            transport.close();
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+}
@@ -8,6 +8,21 @@ public interface TarantoolClient extends Closeable {
 
     Result execute();
 
+    /**
+     * Same as {@link #execute()}, but the returned result owns its copy of the response and stays readable after
+     * next requests or after the client is closed, so pooled connection may be returned before rows are processed.
+     */
+    default Result executeDetached() {
+        throw new TarantoolException("Detached results are not supported by " + getClass().getName());
+    }
+
+    /**
+     * @return whether {@link #executeDetached()} is supported by the client
+     */
+    default boolean isDetachedSupported() {
+        return false;
+    }
+
     void consumeLastResult();
 
     void addBatch();
@@ -28,6 +43,25 @@ public interface TarantoolClient extends Closeable {
         return result.getInt(0);
     }
 
+    default int index(int space, String index) {
+        select(Util.SPACE_VINDEX, Util.INDEX_INDEX_NAME);
+        setInt(space);
+        setString(index);
+        Result result = execute();
+        if (result.getSize() == 0) {
+            throw new TarantoolException("No such index " + index + " in space " + space);
+        }
+        if (result.getSize() != 1) {
+            throw new TarantoolException("Unexpected result length " + result.getSize());
+        }
+        result.next();
+        return result.getInt(1);
+    }
+
+    default int index(String space, String index) {
+        return index(space(space), index);
+    }
+
     void select(int space, int index, int limit, int offset, Iter iterator);
 
     default void select(int space, int index, int limit, int offset) {
@@ -43,7 +77,7 @@ public interface TarantoolClient extends Closeable {
     }
 
     default void select(String space, int index) {
-        select(space(space), index, Integer.MAX_VALUE, 0);
+        select(space, index, Integer.MAX_VALUE, 0);
     }
 
     default void select(int space, int index, int limit) {
@@ -51,7 +85,7 @@ public interface TarantoolClient extends Closeable {
     }
 
     default void select(String space, int index, int limit) {
-        select(space(space), index, limit, 0);
+        select(space, index, limit, 0);
     }
 
     void selectAll(int space, int limit, int offset);
@@ -60,8 +94,12 @@ public interface TarantoolClient extends Closeable {
         selectAll(space, Integer.MAX_VALUE, 0);
     }
 
+    default void selectAll(String space, int limit, int offset) {
+        selectAll(space(space), limit, offset);
+    }
+
     default void selectAll(String space) {
-        selectAll(space(space), Integer.MAX_VALUE, 0);
+        selectAll(space, Integer.MAX_VALUE, 0);
     }
 
     default void selectAll(int space, int limit) {
@@ -69,7 +107,7 @@ public interface TarantoolClient extends Closeable {
     }
 
     default void selectAll(String space, int limit) {
-        selectAll(space(space), limit, 0);
+        selectAll(space, limit, 0);
     }
 
     void eval(String expression);
@@ -79,6 +117,21 @@ public interface TarantoolClient extends Closeable {
         return execute();
     }
 
+    default void call(String function) {
+        throw new TarantoolException("Call is not supported by " + getClass().getName());
+    }
+
+    default void call(PreparedCall call) {
+        request(call);
+    }
+
+    /**
+     * Starts the request encoded by the template, arguments are set as usual and then it is executed or added to batch
+     */
+    default void request(RequestTemplate template) {
+        throw new TarantoolException("Request templates are not supported by " + getClass().getName());
+    }
+
     void insert(int space);
 
     default void insert(String space) {
@@ -98,7 +151,7 @@ public interface TarantoolClient extends Closeable {
     }
 
     default void delete(String space) {
-        delete(space(space), 0);
+        delete(space, 0);
     }
 
     void update(int space, int index);
@@ -135,6 +188,51 @@ public interface TarantoolClient extends Closeable {
 
     void sql(String sqlQuery);
 
+    /**
+     * Prepares SQL statement on the server, requires Tarantool 2.3+. Statements are cached by the connection, so
+     * preparing the same text again does not make a round trip while it is among the most recently used ones.
+     *
+     * @return statement id to execute with {@link #sql(long)}
+     */
+    default long prepare(String sqlQuery) {
+        throw new TarantoolException("Prepared statements are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Looks up the statement cache of {@link #prepare(String)} without a round trip, so it works while a batch is not
+     * executed
+     *
+     * @return id of the cached statement, or {@code null} if the statement has to be prepared
+     */
+    @Nullable
+    default Long getCachedStatementId(String sqlQuery) {
+        return null;
+    }
+
+    default void sql(long statementId) {
+        throw new TarantoolException("Prepared statements are not supported by " + getClass().getName());
+    }
+
+    /**
+     * @return whether {@link #prepare(String)} is supported by both the client and the server it is connected to
+     */
+    default boolean isPrepareSupported() {
+        return false;
+    }
+
+    /**
+     * Overrides {@link TarantoolConfig#withRequestTimeout(int)} for the following requests of this client. Pooled
+     * clients get the configured timeout back once returned to the pool, so it is effectively per call.
+     *
+     * @param millis timeout in milliseconds, 0 means no timeout
+     */
+    default void setTimeout(int millis) {
+        // clients without timeouts may still be pooled, the pool resets the default 0 on return
+        if (millis != 0) {
+            throw new TarantoolException("Timeouts are not supported by " + getClass().getName());
+        }
+    }
+
     boolean isClosed();
 
     @Override
@@ -1,21 +1,17 @@
 package com.sopovs.moradanen.tarantool;
 
 import com.sopovs.moradanen.tarantool.core.*;
-import org.msgpack.core.MessageBufferPacker;
 import org.msgpack.core.MessagePack;
 import org.msgpack.core.MessageUnpacker;
-import org.msgpack.core.buffer.MessageBuffer;
+import org.msgpack.core.buffer.ArrayBufferInput;
 
-import java.io.BufferedOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.Socket;
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Base64;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 //TODO finalize equivalent via PhantomReference
 public class TarantoolClientImpl implements TarantoolClient {
@@ -23,30 +19,48 @@ public class TarantoolClientImpl implements TarantoolClient {
     static final String EXECUTE_ABSENT_EXCEPTION = "Trying to execute absent query";
     static final String PRE_ACTION_EXCEPTION = "Execute or add to batch action before starting next one";
     static final String PRE_SET_EXCEPTION = "Need to call one of update/insert/upsert/delete before setting tuple value";
-    private static final byte INSERT = 1;
-    private static final byte UPSERT_TUPLE = 2;
-    private static final byte UPSERT_OPS = 3;
-    private static final byte EVAL = 4;
-    private static final byte SELECT = 5;
-    private static final byte DELETE = 6;
-    private static final byte UPDATE_KEY = 7;
-    private static final byte UPDATE_TUPLE = 8;
-    private static final byte SQL = 9;
+    static final String PREPARE_IN_BATCH_EXCEPTION = "Cannot prepare new statement while batch is not executed";
+    private static final int MAX_RETAINED_FRAME_SIZE = 1 << 20;
     private final String version;
-    private final Socket socket;
-    private final MessageUnpacker unpacker;
-    private final MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
-    private final MessageBufferPacker queryPacker = MessagePack.newDefaultBufferPacker();
-    private final DataOutputStream out;
-    private int querySize = 0;
-    private int counter;
+    private final Transport transport;
+    private final ArrayBufferInput frameInput = new ArrayBufferInput(new byte[0]);
+    private final MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(frameInput);
+    private final boolean slicedByteBuffers;
+    private final boolean detachedResults;
+    private final byte[] sizePrefix = new byte[5];
+    private byte[] frameBuffer = new byte[8192];
+    private byte[] frame = frameBuffer;
+    private int frameSize;
+    private final RequestEncoder encoder = new RequestEncoder();
     @Nullable
-    private Result last;
+    private AbstractResult last;
     private int batchSize = 0;
-    private byte currentQuery = 0;
+    private final int batchWindow;
+    private final int batchWindowBytes;
+    // sizes of batch requests without read responses, ring buffer starting at inFlightHead
+    private int[] inFlightSizes = new int[64];
+    private int inFlightHead = 0;
+    private int inFlightCount = 0;
+    private long inFlightBytes = 0;
+    // moving average of batch response sizes, responses to requests in flight are expected to be of this size
+    private int expectedResponseSize = 0;
+    private int[] batchCounts = new int[64];
+    @Nullable
+    private TarantoolServerException batchError;
+    private final int statementCacheSize;
+    // access ordered, so the first entry is the least recently used statement
+    private final Map<String, Long> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private final SchemaCache schemaCache;
+    private long schemaId = -1L;
+    // name of the space the current request has been built for, null for requests built from ids
+    @Nullable
+    private String requestSpace;
+    // code of the last response
+    private int responseCode;
+    private int timeout;
 
     public TarantoolClientImpl(TarantoolConfig config) {
-        this(config.getHost(), config.getPort(), config.getUsername(), config.getPassword());
+        this(Transport.connect(config), config);
     }
 
     public TarantoolClientImpl(@Nullable String host) {
@@ -70,38 +84,33 @@ public class TarantoolClientImpl implements TarantoolClient {
     }
 
     public TarantoolClientImpl(Socket socket, @Nullable String login, @Nullable String password) {
-        this.socket = socket;
+        this(new SocketTransport(socket), socketConfig(socket, login, password));
+    }
+
+    TarantoolClientImpl(Transport transport, TarantoolConfig config) {
+        this.transport = transport;
+        slicedByteBuffers = config.isSlicedByteBuffers();
+        detachedResults = config.isDetachedResults();
+        statementCacheSize = config.getStatementCacheSize();
+        schemaCache = config.getSchemaCache();
+        batchWindow = config.getBatchWindow();
+        batchWindowBytes = config.getBatchWindowBytes();
+        timeout = config.getConnectTimeout();
         try {
-            unpacker = MessagePack.newDefaultUnpacker(socket.getInputStream());
-            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
-            version = connect(login, password);
+            transport.setTimeout(timeout);
+            version = connect(config);
         } catch (IOException e) {
             throw new TarantoolException(e);
         }
+        timeout = config.getRequestTimeout();
     }
 
-    private static int currentQueryToQueryCode(byte currentQuery) {
-        switch (currentQuery) {
-            case EVAL:
-            case INSERT:
-            case UPDATE_TUPLE:
-            case UPSERT_TUPLE:
-                return Util.KEY_TUPLE;
-            case SELECT:
-            case DELETE:
-            case UPDATE_KEY:
-                return Util.KEY_KEY;
-            case UPSERT_OPS:
-                return Util.KEY_UPSERT_OPS;
-            case SQL:
-                return Util.KEY_SQL_BIND;
-            case 0:
-            default:
-                throw new TarantoolException(EXECUTE_ABSENT_EXCEPTION);
-        }
+    static TarantoolConfig socketConfig(Socket socket, @Nullable String login, @Nullable String password) {
+        InetAddress address = socket.getInetAddress();
+        return new TarantoolConfig(address == null ? null : address.getHostAddress(), socket.getPort(), login, password);
     }
 
-    private static Socket createSocket(@Nullable String host, int port) {
+    static Socket createSocket(@Nullable String host, int port) {
         try {
             return new Socket(host, port);
         } catch (IOException e) {
@@ -109,45 +118,51 @@ public class TarantoolClientImpl implements TarantoolClient {
         }
     }
 
-    private static byte[] scramble(String password, byte[] salt) {
-        final MessageDigest sha1;
+    /**
+     * @param connectTimeout in milliseconds, 0 means no timeout
+     */
+    static Socket createSocket(@Nullable String host, int port, int connectTimeout) {
+        Socket socket = new Socket();
         try {
-            sha1 = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e) {
-            throw new TarantoolException(e);
-        }
-
-        byte[] step1 = sha1.digest(password.getBytes(StandardCharsets.UTF_8));
-
-        sha1.reset();
-        byte[] step2 = sha1.digest(step1);
-        sha1.reset();
-        sha1.update(Base64.getDecoder().decode(salt), 0, 20);
-        sha1.update(step2);
-        byte[] step3 = sha1.digest();
-        for (int i = 0; i < 20; i++) {
-            step1[i] ^= step3[i];
+            socket.connect(Transport.address(host, port), connectTimeout);
+            return socket;
+        } catch (IOException e) {
+            TarantoolException exception = new TarantoolException(e);
+            try {
+                socket.close();
+            } catch (IOException closeException) {
+                exception.addSuppressed(closeException);
+            }
+            throw exception;
         }
-        return step1;
     }
 
-    private Result getSingleResult() {
+    private Result getSingleResult(boolean detached) {
         try {
-            int bodySize = flushAndGetResultSize(true);
+            int bodySize = flushAndGetResultSize(true, detached);
+            AbstractResult result;
             if (bodySize == 1) {
                 byte bodyKey = unpacker.unpackByte();
                 if (bodyKey == Util.KEY_DATA) {
-                    return last = new ArrayResult(unpacker);
+                    result = new ArrayResult(unpacker, frame, frameSize, slicedByteBuffers);
                 } else if (bodyKey == Util.KEY_ERROR) {
-                    throw new TarantoolException(unpacker.unpackString());
+                    TarantoolServerException error = serverError();
+                    if (error.getCode() == Util.ER_WRONG_SCHEMA_VERSION) {
+                        return rebuildOnSchemaChange(error, detached);
+                    }
+                    throw error;
                 } else {
                     throw new TarantoolException("Unknown body Key " + bodyKey);
                 }
             } else if (bodySize == 2) {
-                return last = new SqlResult(unpacker);
+                result = new SqlResult(unpacker, frame, frameSize, slicedByteBuffers);
             } else {
                 throw new TarantoolException("Body size is " + bodySize);
             }
+            if (!detached) {
+                last = result;
+            }
+            return result;
         } catch (IOException e) {
             throw new TarantoolException(e);
         }
@@ -155,11 +170,37 @@ public class TarantoolClientImpl implements TarantoolClient {
 
     @Override
     public Result execute() {
-        if (batchSize > 0) {
-            executeBatch();
+        return execute(detachedResults);
+    }
+
+    @Override
+    public Result executeDetached() {
+        return execute(true);
+    }
+
+    @Override
+    public boolean isDetachedSupported() {
+        return true;
+    }
+
+    private Result execute(boolean detached) {
+        encoder.finishQueryWithArguments(transport);
+        if (batchSize == 0) {
+            return getSingleResult(detached);
         }
-        finishQueryWithArguments();
-        return getSingleResult();
+        // the request is sent after the batch and its response is read even if the batch fails, so the connection
+        // stays usable
+        try {
+            finishBatch();
+        } catch (TarantoolServerException e) {
+            try {
+                getSingleResult(true);
+            } catch (TarantoolServerException requestError) {
+                e.addSuppressed(requestError);
+            }
+            throw e;
+        }
+        return getSingleResult(detached);
     }
 
     @Override
@@ -167,244 +208,333 @@ public class TarantoolClientImpl implements TarantoolClient {
         if (last == null)
             return;
 
-        while (last.next()) {}
+        last.consume();
+        last.invalidate();
+        // frame of a big result is not retained by the client
+        last = null;
     }
 
     @Override
     public int[] executeBatchUpdate() {
-        int[] result = new int[batchSize];
-        for (int i = 0; i < batchSize; i++) {
-            result[i] = getUpdateResult();
-        }
-        batchSize = 0;
-        return result;
+        return finishBatch();
     }
 
     @Override
     public int executeUpdate() {
-        finishQueryWithArguments();
+        encoder.finishQueryWithArguments(transport);
         return getUpdateResult();
     }
 
     private int getUpdateResult() {
         try {
-            int bodySize = flushAndGetResultSize(true);
+            int bodySize = flushAndGetResultSize(true, false);
             if (1 != bodySize) {
                 throw new TarantoolException("Body size is " + bodySize);
             }
 
             byte bodyKey = unpacker.unpackByte();
             if (bodyKey == Util.KEY_ERROR) {
-                throw new TarantoolException(unpacker.unpackString());
+                throw serverError();
             }
             if (bodyKey != Util.KEY_SQL_INFO) {
                 throw new TarantoolException("Expected SQL_INFO(" + Util.KEY_SQL_INFO + "), but got " + bodyKey);
             }
-            int respBodySize = unpacker.unpackMapHeader();
-            if (1 != respBodySize) {
-                throw new TarantoolException("Non-select body size is " + bodySize);
-            }
-            int sqlInfo = unpacker.unpackInt();
-            if (sqlInfo != Util.KEY_SQL_ROW_COUNT) {
-                throw new TarantoolException("Expected KEY_SQL_ROW_COUNT(" + Util.KEY_SQL_ROW_COUNT + "), but got " + sqlInfo);
-            }
-            return unpacker.unpackInt();
+            return unpackRowCount();
         } catch (IOException e) {
             throw new TarantoolException(e);
         }
     }
 
-    private int flushAndGetResultSize(boolean batch) throws IOException {
-        out.flush();
+    private int unpackRowCount() throws IOException {
+        int respBodySize = unpacker.unpackMapHeader();
+        if (1 != respBodySize) {
+            throw new TarantoolException("Non-select body size is " + respBodySize);
+        }
+        int sqlInfo = unpacker.unpackInt();
+        if (sqlInfo != Util.KEY_SQL_ROW_COUNT) {
+            throw new TarantoolException("Expected KEY_SQL_ROW_COUNT(" + Util.KEY_SQL_ROW_COUNT + "), but got " + sqlInfo);
+        }
+        return unpacker.unpackInt();
+    }
 
-        // TODO expose byte size to Result?
-        unpacker.unpackInt();
+    /**
+     * @param detached whether the frame should be read into a new array not shared with next responses
+     */
+    private int flushAndGetResultSize(boolean batch, boolean detached) throws IOException {
+        encoder.flush(transport);
+
+        if (!detached && last != null) {
+            // rows of the last result are decoded from the frame that is going to be overwritten
+            last.invalidate();
+            last = null;
+        }
+        frameSize = Iproto.readFrameSize(transport, sizePrefix);
+        if (detached) {
+            frame = new byte[frameSize];
+        } else if (frameSize <= frameBuffer.length) {
+            frame = frameBuffer;
+        } else if (frameSize <= MAX_RETAINED_FRAME_SIZE) {
+            frame = frameBuffer = new byte[Math.min(MAX_RETAINED_FRAME_SIZE, Math.max(frameSize, frameBuffer.length * 2))];
+        } else {
+            // not kept after the result is gone, so one huge response does not pin memory for the connection life
+            frame = new byte[frameSize];
+        }
+        transport.readFully(frame, 0, frameSize);
+        frameInput.reset(frame, 0, frameSize);
+        unpacker.reset(frameInput);
         unpackHeader(batch);
         return unpacker.unpackMapHeader();
     }
 
     @Override
     public void addBatch() {
-        finishQueryWithArguments();
+        int size = encoder.finishQueryWithArguments(transport);
+        if (inFlightCount == inFlightSizes.length) {
+            int[] grown = new int[inFlightSizes.length * 2];
+            for (int i = 0; i < inFlightCount; i++) {
+                grown[i] = inFlightSizes[(inFlightHead + i) % inFlightSizes.length];
+            }
+            inFlightSizes = grown;
+            inFlightHead = 0;
+        }
+        inFlightSizes[(inFlightHead + inFlightCount) % inFlightSizes.length] = size;
+        inFlightCount++;
+        inFlightBytes += size;
         batchSize++;
+        if (inFlightCount >= batchWindow || inFlightBytes() >= batchWindowBytes) {
+            // responses to the older half of the window are read while the newer half is still on the way
+            while (inFlightCount > batchWindow / 2 || inFlightBytes() > batchWindowBytes / 2) {
+                readBatchResponse();
+            }
+        }
     }
 
-    private void finishQueryWithArguments() {
+    /**
+     * @return size of requests in flight and of their expected responses, which wait in socket buffers as well
+     */
+    private long inFlightBytes() {
+        return inFlightBytes + (long) inFlightCount * expectedResponseSize;
+    }
+
+    @Override
+    public void executeBatch() {
+        finishBatch();
+    }
+
+    /**
+     * Reads all remaining responses of the batch and throws the first error returned by the server if any
+     *
+     * @return number of affected or returned tuples for every request in the batch
+     */
+    private int[] finishBatch() {
+        while (inFlightCount > 0) {
+            readBatchResponse();
+        }
+        int[] result = Arrays.copyOf(batchCounts, batchSize);
+        TarantoolServerException error = batchError;
+        batchSize = 0;
+        batchError = null;
+        if (error != null) {
+            throw error;
+        }
+        return result;
+    }
+
+    private void readBatchResponse() {
+        int index = batchSize - inFlightCount;
+        inFlightBytes -= inFlightSizes[inFlightHead];
+        inFlightHead = (inFlightHead + 1) % inFlightSizes.length;
+        inFlightCount--;
+        if (index == batchCounts.length) {
+            batchCounts = Arrays.copyOf(batchCounts, batchCounts.length * 2);
+        }
         try {
-            writeQuery();
-            finishQuery();
+            // every response of the batch gets the whole timeout, the next ones may still be sent meanwhile
+            transport.setTimeout(timeout);
+            batchCounts[index] = readBatchCount();
+            int responseSize = frameSize + 5;
+            expectedResponseSize = expectedResponseSize == 0
+                    ? responseSize
+                    : (int) ((expectedResponseSize * 7L + responseSize) / 8);
         } catch (IOException e) {
             throw new TarantoolException(e);
         }
     }
 
-    private void writeQuery() throws IOException {
-        packer.packInt(currentQueryToQueryCode(currentQuery));
-        packer.packArrayHeader(querySize);
-        if (querySize > 0) {
-            List<MessageBuffer> bufferList = queryPacker.toBufferList();
-            for (int i = 0; i < bufferList.size(); i++) {
-                MessageBuffer messageBuffer = bufferList.get(i);
-                // See MessageBufferPackerBenchmark in tarantool-benchmarks
-                packer.addPayload(messageBuffer.array(), messageBuffer.arrayOffset(), messageBuffer.size());
+    /**
+     * Error from the server does not stop the batch, the rest of responses is still read and the first error is
+     * thrown by {@link #finishBatch()}
+     */
+    private int readBatchCount() throws IOException {
+        int bodySize = flushAndGetResultSize(true, false);
+        if (bodySize == 1) {
+            byte bodyKey = unpacker.unpackByte();
+            if (bodyKey == Util.KEY_DATA) {
+                return unpacker.unpackArrayHeader();
+            } else if (bodyKey == Util.KEY_SQL_INFO) {
+                return unpackRowCount();
+            } else if (bodyKey == Util.KEY_ERROR) {
+                if (batchError == null) {
+                    batchError = serverError();
+                }
+                return -1;
+            } else {
+                throw new TarantoolException("Unknown body Key " + bodyKey);
             }
-            queryPacker.clear();
+        } else if (bodySize == 2) {
+            return new SqlResult(unpacker, frame, frameSize, slicedByteBuffers).getSize();
+        } else {
+            throw new TarantoolException("Body size is " + bodySize);
         }
-        currentQuery = 0;
-        querySize = 0;
     }
 
     @Override
-    public void executeBatch() {
-        for (int i = 0; i < batchSize; i++) {
-            Result result = getSingleResult();
-            result.consume();
-        }
-        batchSize = 0;
+    public void eval(String expression) {
+        startRequest();
+        encoder.eval(expression);
     }
 
     @Override
-    public void eval(String expression) {
-        preActionCheck();
-        currentQuery = EVAL;
-        try {
-            writeCode(Util.CODE_EVAL);
-            packer.packMapHeader(2);
-            packer.packInt(Util.KEY_EXPRESSION);
-            packer.packString(expression);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
+    public int space(String space) {
+        Integer cached = schemaCache.space(space);
+        if (cached != null) {
+            return cached;
         }
+        int id = TarantoolClient.super.space(space);
+        schemaCache.putSpace(space, id, schemaId);
+        return id;
     }
 
     @Override
-    public void select(int space, int index, int limit, int offset, Iter iterator) {
-        selectInternal(6, space, limit, offset, iterator);
-
-        try {
-            packer.packInt(Util.KEY_INDEX);
-            packer.packInt(index);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
+    public int index(int space, String index) {
+        Integer cached = schemaCache.index(space, index);
+        if (cached != null) {
+            return cached;
         }
+        int id = TarantoolClient.super.index(space, index);
+        schemaCache.putIndex(space, index, id, schemaId);
+        return id;
     }
 
     @Override
-    public void selectAll(int space, int limit, int offset) {
-        selectInternal(5, space, limit, offset, Iter.ALL);
+    public void call(String function) {
+        startRequest();
+        encoder.call(function);
     }
 
-    private void selectInternal(int headSize, int space, int limit, int offset, Iter iterator) {
-        preActionCheck();
-        currentQuery = SELECT;
-        try {
-            writeCode(Util.CODE_SELECT);
-            if (offset == 0) {
-                headSize--;
-            }
-            if (iterator == Iter.EQ) {
-                headSize--;
-            }
+    @Override
+    public void request(RequestTemplate template) {
+        startRequest();
+        encoder.request(template);
+    }
 
-            packer.packMapHeader(headSize);
-            packer.packInt(Util.KEY_SPACE);
-            packer.packInt(space);
+    @Override
+    public void select(int space, int index, int limit, int offset, Iter iterator) {
+        startRequest();
+        encoder.select(space, index, limit, offset, iterator);
+    }
 
-            if (iterator != Iter.EQ) {
-                packer.packInt(Util.KEY_ITERATOR);
-                packer.packInt(iterator.getValue());
-            }
-            packer.packInt(Util.KEY_LIMIT);
-            packer.packInt(limit);
-            if (offset != 0) {
-                packer.packInt(Util.KEY_OFFSET);
-                packer.packInt(offset);
-            }
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+    @Override
+    public void selectAll(int space, int limit, int offset) {
+        startRequest();
+        encoder.selectAll(space, limit, offset);
     }
 
-    private void finishQuery() throws IOException {
-        packer.flush();
-        List<MessageBuffer> bufferList = packer.toBufferList();
-        writeSize(bufferList);
-        for (int i = 0; i < bufferList.size(); i++) {
-            MessageBuffer messageBuffer = bufferList.get(i);
-            // See MessageBufferPackerBenchmark in tarantool-benchmarks
-            out.write(messageBuffer.array(), messageBuffer.arrayOffset(), messageBuffer.size());
-        }
-        packer.clear();
+    @Override
+    public void select(String space, int index, int limit, int offset) {
+        int id = startSpaceRequest(space);
+        encoder.select(id, index, limit, offset, Iter.EQ);
     }
 
-    private void writeCode(int code) throws IOException {
-        if (last != null && last.hasNext()) {
-            throw new TarantoolException("Sending next without reading previous");
-        }
-        packer.packMapHeader(2);
-        packer.packInt(Util.KEY_CODE);
-        packer.packInt(code);
-        packer.packInt(Util.KEY_SYNC);
-        packer.packInt(++counter);
+    @Override
+    public void selectAll(String space, int limit, int offset) {
+        int id = startSpaceRequest(space);
+        encoder.selectAll(id, limit, offset);
     }
 
-    private void writeSize(List<MessageBuffer> bufferList) throws IOException {
-        out.writeByte(MessagePack.Code.UINT32);
-        int size = 0;
-        for (int i = 0; i < bufferList.size(); i++) {
-            MessageBuffer messageBuffer = bufferList.get(i);
-            size += messageBuffer.size();
+    /**
+     * Deadline of the request starts here, so it also limits writes of the request that happen before the flush
+     */
+    private void startRequest() {
+        if (last != null && last.hasNext()) {
+            throw new TarantoolException("Sending next without reading previous");
         }
-        out.writeInt(size);
+        transport.setTimeout(timeout);
+        requestSpace = null;
     }
 
     private void unpackHeader(boolean batch) throws IOException {
+        int counter = encoder.getSync();
         int headerSize = unpacker.unpackMapHeader();
         for (int i = 0; i < headerSize; i++) {
             byte key = unpacker.unpackByte();
             if (key == Util.KEY_SYNC) {
                 int sync = unpacker.unpackInt();
                 if (batch) {
-                    if (sync > counter) {
+                    // sync wraps to 0, so a response of an older request may have a bigger one
+                    if (((counter - sync) & Integer.MAX_VALUE) > Integer.MAX_VALUE / 2) {
                         throw new TarantoolException("Expected sync <= " + counter + " and came " + sync);
                     }
                 } else if (sync != counter) {
                     throw new TarantoolException("Expected sync = " + counter + " and came " + sync);
                 }
+            } else if (key == Util.KEY_SCHEMA_ID) {
+                schemaId = unpacker.unpackLong();
+                schemaCache.schemaId(schemaId);
+            } else if (key == Util.KEY_CODE) {
+                responseCode = unpacker.unpackInt();
             } else {
                 unpacker.unpackInt();
             }
         }
     }
 
-    private String parseGreeting() throws IOException {
-        byte[] bytes = new byte[64];
-        unpacker.readPayload(bytes);
-        String greeting = new String(bytes, StandardCharsets.US_ASCII);
-        String[] parts = greeting.split(" ");
-        if (parts.length < 2 || !"Tarantool".equals(parts[0])) {
-            throw new TarantoolException("Unexpected greeting " + greeting);
-        }
-        return parts[1];
-    }
-
-    private String connect(@Nullable String login, @Nullable String password) throws IOException {
-        String version = parseGreeting();
-        final byte[] salt = new byte[44];
-        unpacker.readPayload(salt);
-        unpacker.readPayload(ByteBuffer.allocate(20));// unused
-        if (login != null && password != null) {
-            writeCode(Util.CODE_AUTH);
-            packer.packMapHeader(2);
-            packer.packInt(Util.KEY_USER_NAME);
-            packer.packString(login);
-            packer.packInt(Util.KEY_TUPLE);
-            packer.packArrayHeader(2);
-            packer.packString("chap-sha1");
-            packer.packBinaryHeader(20);
-            packer.addPayload(scramble(password, salt));
-            finishQuery();
-            int bodySize = flushAndGetResultSize(false);
+    private TarantoolServerException serverError() throws IOException {
+        return new TarantoolServerException(responseCode & ~Util.CODE_ERROR, unpacker.unpackString());
+    }
+
+    /**
+     * Request on a space looked up by name is rejected when the schema has changed since the lookup. It is sent again
+     * with the space looked up in the new schema, request built from a space id can not be and the error is thrown.
+     */
+    private Result rebuildOnSchemaChange(TarantoolServerException error, boolean detached) throws IOException {
+        String space = requestSpace;
+        RequestEncoder.CheckedFrame checked = encoder.lastCheckedFrame();
+        requestSpace = null;
+        if (space == null || checked == null) {
+            throw error;
+        }
+        schemaCache.clear();
+        int id = space(space);
+        encoder.resend(transport, checked, id, (int) schemaId);
+        return getSingleResult(detached);
+    }
+
+    /**
+     * Request is built from the space id looked up by name, so it is sent with the schema id of the lookup and is
+     * rebuilt if the schema has changed since
+     *
+     * @return space id
+     */
+    private int startSpaceRequest(String space) {
+        int id = space(space);
+        startRequest();
+        if (schemaId > 0) {
+            requestSpace = space;
+            encoder.checkSchema((int) schemaId);
+        }
+        return id;
+    }
+
+    private String connect(TarantoolConfig config) throws IOException {
+        byte[] greeting = new byte[Iproto.GREETING_SIZE];
+        transport.readFully(greeting, 0, greeting.length);
+        String version = Iproto.parseGreeting(greeting);
+        byte[] scramble = Iproto.scramble(config, greeting);
+        if (scramble != null) {
+            encoder.auth(config.getUsername(), scramble);
+            encoder.finishQuery(transport);
+            int bodySize = flushAndGetResultSize(false, false);
             if (bodySize == 1) {
                 byte bodyKey = unpacker.unpackByte();
                 if (bodyKey == Util.KEY_ERROR) {
@@ -420,15 +550,96 @@ public class TarantoolClientImpl implements TarantoolClient {
         return version;
     }
 
+    @Override
+    public long prepare(String sqlQuery) {
+        startRequest();
+        Long cached = statements.get(sqlQuery);
+        if (cached != null) {
+            return cached;
+        }
+        if (!isPrepareSupported()) {
+            throw new TarantoolException("Prepared statements are supported since Tarantool 2.3, but connected to "
+                    + version);
+        }
+        if (batchSize > 0) {
+            throw new TarantoolException(PREPARE_IN_BATCH_EXCEPTION);
+        }
+        try {
+            encoder.prepare(sqlQuery);
+            encoder.finishQuery(transport);
+            int bodySize = flushAndGetResultSize(false, false);
+            Long statementId = null;
+            for (int i = 0; i < bodySize; i++) {
+                byte bodyKey = unpacker.unpackByte();
+                if (bodyKey == Util.KEY_ERROR) {
+                    throw serverError();
+                } else if (bodyKey == Util.KEY_STMT_ID) {
+                    statementId = unpacker.unpackLong();
+                } else {
+                    unpacker.skipValue();
+                }
+            }
+            if (statementId == null) {
+                throw new TarantoolException("No statement id in prepare response");
+            }
+            statements.put(sqlQuery, statementId);
+            if (statements.size() > statementCacheSize) {
+                Iterator<Long> eldest = statements.values().iterator();
+                long evicted = eldest.next();
+                eldest.remove();
+                unprepare(evicted);
+            }
+            return statementId;
+        } catch (IOException e) {
+            throw new TarantoolException(e);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Long getCachedStatementId(String sqlQuery) {
+        return statements.get(sqlQuery);
+    }
+
+    private void unprepare(long statementId) throws IOException {
+        transport.setTimeout(timeout);
+        encoder.unprepare(statementId);
+        encoder.finishQuery(transport);
+        int bodySize = flushAndGetResultSize(false, false);
+        if (bodySize == 1 && unpacker.unpackByte() == Util.KEY_ERROR) {
+            throw serverError();
+        }
+        if (bodySize != 0) {
+            throw new TarantoolException(bodySize + " body size came from unprepare");
+        }
+    }
+
+    @Override
+    public boolean isPrepareSupported() {
+        return Util.isVersionAtLeast(version, 2, 3);
+    }
+
+    @Override
+    public void sql(long statementId) {
+        startRequest();
+        encoder.sql(statementId);
+    }
+
+    @Override
+    public void setTimeout(int millis) {
+        TarantoolConfig.checkTimeout(millis);
+        timeout = millis;
+    }
+
     @Override
     public boolean isClosed() {
-        return socket.isClosed();
+        return transport.isClosed();
     }
 
     @Override
     public void close() {
         try {
-            socket.close();
+            transport.close();
         } catch (IOException e) {
             throw new TarantoolException(e);
         }
@@ -436,56 +647,48 @@ public class TarantoolClientImpl implements TarantoolClient {
 
     @Override
     public void insert(int space) {
-        insertOrReplace(Util.CODE_INSERT, space);
+        startRequest();
+        encoder.insertOrReplace(Util.CODE_INSERT, space);
     }
 
     @Override
     public void replace(int space) {
-        insertOrReplace(Util.CODE_REPLACE, space);
+        startRequest();
+        encoder.insertOrReplace(Util.CODE_REPLACE, space);
     }
 
-    private void insertOrReplace(int code, int space) {
-        preActionCheck();
-        currentQuery = INSERT;
-        try {
-            writeCode(code);
-            packer.packMapHeader(2);
-            packer.packInt(Util.KEY_SPACE);
-            packer.packInt(space);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+    @Override
+    public void delete(int space, int index) {
+        startRequest();
+        encoder.delete(space, index);
     }
 
-    private void preActionCheck() {
-        if (currentQuery != 0) {
-            throw new TarantoolException(PRE_ACTION_EXCEPTION);
-        }
+    @Override
+    public void insert(String space) {
+        int id = startSpaceRequest(space);
+        encoder.insertOrReplace(Util.CODE_INSERT, id);
     }
 
     @Override
-    public void delete(int space, int index) {
-        preActionCheck();
-        currentQuery = DELETE;
-        try {
-            writeCode(Util.CODE_DELETE);
-            packer.packMapHeader(3);
-            packer.packInt(Util.KEY_SPACE);
-            packer.packInt(space);
-            packer.packInt(Util.KEY_INDEX);
-            packer.packInt(index);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+    public void replace(String space) {
+        int id = startSpaceRequest(space);
+        encoder.insertOrReplace(Util.CODE_REPLACE, id);
+    }
+
+    @Override
+    public void delete(String space, int index) {
+        int id = startSpaceRequest(space);
+        encoder.delete(id, index);
     }
 
     @Override
     public void ping() {
+        startRequest();
         try {
-            writeCode(Util.CODE_PING);
-            finishQuery();
+            encoder.ping();
+            encoder.finishQuery(transport);
 
-            int bodySize = flushAndGetResultSize(false);
+            int bodySize = flushAndGetResultSize(false, false);
             if (bodySize != 0) {
                 throw new TarantoolException(bodySize + " body size came from ping");
             }
@@ -494,212 +697,82 @@ public class TarantoolClientImpl implements TarantoolClient {
         }
     }
 
-    private void preSetCheck() {
-        if (currentQuery == 0) {
-            throw new TarantoolException(PRE_SET_EXCEPTION);
-        }
-    }
-
     @Override
     public void setNull() {
-        preSetCheck();
-        try {
-            querySize++;
-            queryPacker.packNil();
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.setNull();
     }
 
     @Override
     public void setBytes(byte[] bytes) {
-        preSetCheck();
-        try {
-            querySize++;
-            queryPacker.packBinaryHeader(bytes.length);
-            queryPacker.writePayload(bytes);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.setBytes(bytes);
     }
 
     @Override
     public void setLong(long val) {
-        preSetCheck();
-        try {
-            querySize++;
-            queryPacker.packLong(val);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.setLong(val);
     }
 
     @Override
     public void setBoolean(boolean val) {
-        preSetCheck();
-        try {
-            querySize++;
-            queryPacker.packBoolean(val);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.setBoolean(val);
     }
 
     @Override
     public void setDouble(double val) {
-        preSetCheck();
-        try {
-            querySize++;
-            queryPacker.packDouble(val);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
-
+        encoder.setDouble(val);
     }
 
     @Override
     public void setFloat(float val) {
-        preSetCheck();
-        try {
-            querySize++;
-            queryPacker.packFloat(val);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.setFloat(val);
     }
 
     @Override
     public void setInt(int val) {
-        preSetCheck();
-        try {
-            querySize++;
-            queryPacker.packInt(val);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
-
+        encoder.setInt(val);
     }
 
     @Override
     public void setString(@Nullable String val) {
-        preSetCheck();
-        try {
-            querySize++;
-            if (val == null) {
-                queryPacker.packNil();
-            } else {
-                queryPacker.packString(val);
-            }
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.setString(val);
     }
 
     @Override
     public void update(int space, int index) {
-        preActionCheck();
-        currentQuery = UPDATE_KEY;
-        try {
-            writeCode(Util.CODE_UPDATE);
-            packer.packMapHeader(4);
-            packer.packInt(Util.KEY_SPACE);
-            packer.packInt(space);
-            packer.packInt(Util.KEY_INDEX);
-            packer.packInt(index);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        startRequest();
+        encoder.update(space, index);
     }
 
     @Override
     public void upsert(int space) {
-        preActionCheck();
-        currentQuery = UPSERT_TUPLE;
-        try {
-            writeCode(Util.CODE_UPSERT);
-            packer.packMapHeader(3);
-            packer.packInt(Util.KEY_SPACE);
-            packer.packInt(space);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
-    }
-
-    private void preChange(String op, int field) throws IOException {
-        if (currentQuery == UPDATE_KEY) {
-            writeQuery();
-            currentQuery = UPDATE_TUPLE;
-        } else if (currentQuery == UPSERT_TUPLE) {
-            writeQuery();
-            currentQuery = UPSERT_OPS;
-        } else if (currentQuery != UPDATE_TUPLE && currentQuery != UPSERT_OPS) {
-            throw new TarantoolException(PRE_CHANGE_EXCEPTION);
-        }
-        querySize++;
-        queryPacker.packArrayHeader(3);
-        queryPacker.packString(op);
-        queryPacker.packInt(field);
+        startRequest();
+        encoder.upsert(space);
     }
 
     @Override
     public void change(IntOp op, int field, int arg) {
-        try {
-            preChange(op.getVal(), field);
-            queryPacker.packInt(arg);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.change(op, field, arg);
     }
 
     @Override
     public void change(IntOp op, int field, long arg) {
-        try {
-            preChange(op.getVal(), field);
-            queryPacker.packLong(arg);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.change(op, field, arg);
     }
 
     @Override
     public void change(Op op, int field, @Nullable String arg) {
-        try {
-            preChange(op.getVal(), field);
-            if (arg == null) {
-                queryPacker.packNil();
-            } else {
-                queryPacker.packString(arg);
-            }
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.change(op, field, arg);
     }
 
     @Override
     public void change(Op op, int field, byte[] bytes) {
-        try {
-            preChange(op.getVal(), field);
-            queryPacker.packBinaryHeader(bytes.length);
-            queryPacker.writePayload(bytes);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
+        encoder.change(op, field, bytes);
     }
 
     @Override
     public void sql(String sqlQuery) {
-        preActionCheck();
-        currentQuery = SQL;
-
-        try {
-            writeCode(Util.CODE_EXECUTE);
-            packer.packMapHeader(2);
-            packer.packInt(Util.KEY_SQL_TEXT);
-            packer.packString(sqlQuery);
-        } catch (IOException e) {
-            throw new TarantoolException(e);
-        }
-
+        startRequest();
+        encoder.sql(sqlQuery);
     }
 
     @Override
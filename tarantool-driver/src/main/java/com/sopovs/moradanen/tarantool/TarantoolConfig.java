@@ -1,6 +1,7 @@
 package com.sopovs.moradanen.tarantool;
 
 import com.sopovs.moradanen.tarantool.core.Nullable;
+import com.sopovs.moradanen.tarantool.core.TarantoolTimeoutException;
 
 public class TarantoolConfig {
     @Nullable
@@ -11,12 +12,153 @@ public class TarantoolConfig {
     @Nullable
     // TODO char[] ?
     private final String password;
+    // settings below are only assigned by the withers on a new copy, so the config is still immutable once returned
+    private TransportType transport = TransportType.SOCKET;
+    private boolean slicedByteBuffers = false;
+    private boolean detachedResults = false;
+    private int statementCacheSize = 64;
+    private SchemaCache schemaCache;
+    private int batchWindow = 512;
+    private int batchWindowBytes = 1 << 20;
+    private int connectTimeout = 0;
+    private int requestTimeout = 0;
+    @Nullable
+    private String unixSocket;
 
     public TarantoolConfig(@Nullable String host, int port, @Nullable String username, @Nullable String password) {
         this.host = host;
         this.port = port;
         this.username = username;
         this.password = password;
+        this.schemaCache = new SchemaCache();
+    }
+
+    private TarantoolConfig(TarantoolConfig other) {
+        this.host = other.host;
+        this.port = other.port;
+        this.username = other.username;
+        this.password = other.password;
+        this.transport = other.transport;
+        this.slicedByteBuffers = other.slicedByteBuffers;
+        this.detachedResults = other.detachedResults;
+        this.statementCacheSize = other.statementCacheSize;
+        this.schemaCache = other.schemaCache;
+        this.batchWindow = other.batchWindow;
+        this.batchWindowBytes = other.batchWindowBytes;
+        this.connectTimeout = other.connectTimeout;
+        this.requestTimeout = other.requestTimeout;
+        this.unixSocket = other.unixSocket;
+    }
+
+    public TarantoolConfig withTransport(TransportType transport) {
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.transport = transport;
+        return config;
+    }
+
+    /**
+     * With sliced byte buffers {@link Result#getByteBuffer(int)} returns read-only view of the response frame
+     * instead of a copy. The view is valid only until the next call of {@link Result#next()} on the same result.
+     */
+    public TarantoolConfig withSlicedByteBuffers(boolean slicedByteBuffers) {
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.slicedByteBuffers = slicedByteBuffers;
+        return config;
+    }
+
+    /**
+     * With detached results every {@link TarantoolClient#execute()} works as {@link TarantoolClient#executeDetached()}
+     */
+    public TarantoolConfig withDetachedResults(boolean detachedResults) {
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.detachedResults = detachedResults;
+        return config;
+    }
+
+    /**
+     * Number of prepared SQL statements each connection keeps, least recently used one is unprepared when exceeded
+     */
+    public TarantoolConfig withStatementCacheSize(int statementCacheSize) {
+        if (statementCacheSize < 1) {
+            throw new IllegalArgumentException("Statement cache size should be positive, but got " + statementCacheSize);
+        }
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.statementCacheSize = statementCacheSize;
+        return config;
+    }
+
+    /**
+     * Space and index ids cache used by clients created with this config, by default each config has its own
+     */
+    public TarantoolConfig withSchemaCache(SchemaCache schemaCache) {
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.schemaCache = schemaCache;
+        return config;
+    }
+
+    /**
+     * Limits batch requests sent without reading their responses. Once either limit is reached
+     * {@link TarantoolClient#addBatch()} reads responses until the half of both limits is in flight, so neither side
+     * is blocked on writing into a full socket while the pipe stays busy.
+     * <p>
+     * Server stops reading requests of the connection once it has {@code net_msg_max} of them in progress, 768 by
+     * default, so the number of requests should stay below the server setting. Responses of requests in flight are
+     * counted in bytes as well, by the average size of the responses read so far.
+     *
+     * @param requests maximum number of requests in flight, 512 by default
+     * @param bytes    maximum size of requests in flight with their expected responses, 1 MiB by default
+     */
+    public TarantoolConfig withBatchWindow(int requests, int bytes) {
+        if (requests < 1 || bytes < 1) {
+            throw new IllegalArgumentException("Batch window should be positive, but got " + requests + " requests and "
+                    + bytes + " bytes");
+        }
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.batchWindow = requests;
+        config.batchWindowBytes = bytes;
+        return config;
+    }
+
+    /**
+     * Limits establishing the connection, including the greeting and authentication
+     *
+     * @param millis timeout in milliseconds, 0 (default) means no timeout
+     */
+    public TarantoolConfig withConnectTimeout(int millis) {
+        checkTimeout(millis);
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.connectTimeout = millis;
+        return config;
+    }
+
+    /**
+     * Limits waiting for each response. Once it is exceeded {@link TarantoolTimeoutException} is thrown and the
+     * connection is closed, since the late response would be read instead of the next one. Can be overridden with
+     * {@link TarantoolClient#setTimeout(int)}.
+     *
+     * @param millis timeout in milliseconds, 0 (default) means no timeout
+     */
+    public TarantoolConfig withRequestTimeout(int millis) {
+        checkTimeout(millis);
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.requestTimeout = millis;
+        return config;
+    }
+
+    /**
+     * Connects through the Unix domain socket at {@code path} instead of host and port, which requires Java 16 or newer
+     */
+    public TarantoolConfig withUnixSocket(String path) {
+        TarantoolConfig config = new TarantoolConfig(this);
+        config.transport = TransportType.UNIX;
+        config.unixSocket = path;
+        return config;
+    }
+
+    static void checkTimeout(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Timeout should not be negative, but got " + millis);
+        }
     }
 
     @Nullable
@@ -37,4 +179,45 @@ public class TarantoolConfig {
     String getPassword() {
         return password;
     }
+
+    public TransportType getTransport() {
+        return transport;
+    }
+
+    public boolean isSlicedByteBuffers() {
+        return slicedByteBuffers;
+    }
+
+    public boolean isDetachedResults() {
+        return detachedResults;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public SchemaCache getSchemaCache() {
+        return schemaCache;
+    }
+
+    public int getBatchWindow() {
+        return batchWindow;
+    }
+
+    public int getBatchWindowBytes() {
+        return batchWindowBytes;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public int getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    @Nullable
+    public String getUnixSocket() {
+        return unixSocket;
+    }
 }
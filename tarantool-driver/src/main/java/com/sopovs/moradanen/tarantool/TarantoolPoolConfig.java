@@ -0,0 +1,121 @@
+package com.sopovs.moradanen.tarantool;
+
+/**
+ * Settings of {@link TarantoolPooledClientSource}. Clients are created on demand up to the size of the pool, with
+ * min idle, max idle time or max lifetime set the pool also starts a maintainer thread that keeps them.
+ */
+public class TarantoolPoolConfig {
+    private final int size;
+    private final int minIdle;
+    private final int maxIdle;
+    private final int maxIdleTime;
+    private final int maxLifetime;
+    private final int maintenanceInterval;
+
+    public TarantoolPoolConfig(int size) {
+        this(checkSize(size), 0, size, 0, 0, 1000);
+    }
+
+    private TarantoolPoolConfig(int size, int minIdle, int maxIdle, int maxIdleTime, int maxLifetime,
+                                int maintenanceInterval) {
+        this.size = size;
+        this.minIdle = minIdle;
+        this.maxIdle = maxIdle;
+        this.maxIdleTime = maxIdleTime;
+        this.maxLifetime = maxLifetime;
+        this.maintenanceInterval = maintenanceInterval;
+    }
+
+    private static int checkSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Pool size should not be negative, but got " + size);
+        }
+        return size;
+    }
+
+    /**
+     * Idle clients the maintainer creates in advance and keeps from eviction by max idle time, 0 by default
+     */
+    public TarantoolPoolConfig withMinIdle(int minIdle) {
+        if (minIdle < 0 || minIdle > maxIdle) {
+            throw new IllegalArgumentException("Min idle should be from 0 to max idle " + maxIdle + ", but got "
+                    + minIdle);
+        }
+        return new TarantoolPoolConfig(size, minIdle, maxIdle, maxIdleTime, maxLifetime, maintenanceInterval);
+    }
+
+    /**
+     * Idle clients kept in the pool, returned ones above it are closed right away. Pool size by default.
+     */
+    public TarantoolPoolConfig withMaxIdle(int maxIdle) {
+        if (maxIdle < minIdle || maxIdle > size) {
+            throw new IllegalArgumentException("Max idle should be from min idle " + minIdle + " to pool size " + size
+                    + ", but got " + maxIdle);
+        }
+        return new TarantoolPoolConfig(size, minIdle, maxIdle, maxIdleTime, maxLifetime, maintenanceInterval);
+    }
+
+    /**
+     * Clients idle for longer are closed by the maintainer unless only min idle ones are left
+     *
+     * @param millis time in milliseconds, 0 (default) means idle clients are kept
+     */
+    public TarantoolPoolConfig withMaxIdleTime(int millis) {
+        checkTime(millis);
+        return new TarantoolPoolConfig(size, minIdle, maxIdle, millis, maxLifetime, maintenanceInterval);
+    }
+
+    /**
+     * Clients living for longer are closed when returned or by the maintainer, if they are idle
+     *
+     * @param millis time in milliseconds, 0 (default) means no limit
+     */
+    public TarantoolPoolConfig withMaxLifetime(int millis) {
+        checkTime(millis);
+        return new TarantoolPoolConfig(size, minIdle, maxIdle, maxIdleTime, millis, maintenanceInterval);
+    }
+
+    /**
+     * @param millis time between runs of the maintainer in milliseconds, 1 second by default
+     */
+    public TarantoolPoolConfig withMaintenanceInterval(int millis) {
+        if (millis < 1) {
+            throw new IllegalArgumentException("Maintenance interval should be positive, but got " + millis);
+        }
+        return new TarantoolPoolConfig(size, minIdle, maxIdle, maxIdleTime, maxLifetime, millis);
+    }
+
+    private static void checkTime(int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Time should not be negative, but got " + millis);
+        }
+    }
+
+    boolean isMaintained() {
+        return minIdle > 0 || maxIdleTime > 0 || maxLifetime > 0;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public int getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public int getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public int getMaintenanceInterval() {
+        return maintenanceInterval;
+    }
+}
@@ -3,28 +3,64 @@ package com.sopovs.moradanen.tarantool;
 import com.sopovs.moradanen.tarantool.core.*;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
-//TODO lazy clients creation and closing clients that are stale for too long
+/**
+ * Clients are created on demand up to the size of the pool. The most recently returned idle client is borrowed first,
+ * so clients not needed after a spike of load stay idle and are closed once they exceed max idle time, see
+ * {@link TarantoolPoolConfig}.
+ */
 public class TarantoolPooledClientSource implements TarantoolClientSource {
 
     static final String CONNECTION_CLOSED = "Connection already closed";
     static final String POOL_CLOSED = "Pool is closed";
 
-    private boolean poolClosed = false;
-    private final ArrayDeque<TarantoolClient> pool;
+    // read without the lock only to skip draining of the client that is going to be closed anyway
+    private volatile boolean poolClosed = false;
+    // most recently returned first
+    private final ArrayDeque<PooledClient> pool;
+    // not a monitor, so threads waiting for a connection do not pin carriers of virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
     private final int size;
     private int currentSize;
+    // at most one connection is replaced in the background at a time
+    private boolean replacing;
     private final TarantoolConfig config;
+    private final TarantoolPoolConfig poolConfig;
     private final Function<TarantoolConfig, TarantoolClient> clientFactory;
+    @Nullable
+    private final Thread maintainer;
 
     public TarantoolPooledClientSource(TarantoolConfig config, Function<TarantoolConfig, TarantoolClient> clientFactory,
-                                       int size) {
+                                       TarantoolPoolConfig poolConfig) {
         this.config = config;
         this.clientFactory = clientFactory;
-        this.size = size;
+        this.poolConfig = poolConfig;
+        this.size = poolConfig.getSize();
         this.pool = new ArrayDeque<>(size);
+        if (poolConfig.isMaintained()) {
+            maintainer = new Thread(this::runMaintainer, "tarantool-pool-maintainer");
+            maintainer.setDaemon(true);
+            maintainer.start();
+        } else {
+            maintainer = null;
+        }
+    }
+
+    public TarantoolPooledClientSource(TarantoolConfig config, TarantoolPoolConfig poolConfig) {
+        this(config, TarantoolClientImpl::new, poolConfig);
+    }
+
+    public TarantoolPooledClientSource(TarantoolConfig config, Function<TarantoolConfig, TarantoolClient> clientFactory,
+                                       int size) {
+        this(config, clientFactory, new TarantoolPoolConfig(size));
     }
 
     public TarantoolPooledClientSource(TarantoolConfig config, int size) {
@@ -42,392 +78,304 @@ public class TarantoolPooledClientSource implements TarantoolClientSource {
 
     @Override
     public TarantoolClient getClient() {
-        synchronized (pool) {
+        lock.lock();
+        try {
             while (!poolClosed) {
-                TarantoolClient client = pool.pollFirst();
-                if (client != null) {
-                    return new TarantoolClientProxy(client);
+                PooledClient pooled = pool.pollFirst();
+                if (pooled != null) {
+                    return new TarantoolClientProxy(pooled);
                 }
                 if (currentSize < size) {
+                    // reserves the place for the new client, which is connected without the lock
                     currentSize++;
-                    try {
-                        return new TarantoolClientProxy(clientFactory.apply(config));
-                    } catch (TarantoolException creationException) {
-                        currentSize--;
-                        throw creationException;
-                    }
+                    break;
                 }
                 try {
-                    pool.wait();
+                    available.await();
                 } catch (InterruptedException e) {
                     throw new TarantoolException("Interrupted while waiting for a free connection");
                 }
             }
-        }
-        throw new TarantoolException(POOL_CLOSED);
-    }
-
-    @Override
-    public void close() {
-        synchronized (pool) {
-            poolClosed = true;
-            TarantoolException poolCloseException = null;
-            for (Iterator<TarantoolClient> iterator = pool.iterator(); iterator.hasNext(); ) {
-                TarantoolClient client = iterator.next();
-                try {
-                    client.close();
-                } catch (TarantoolException e) {
-                    if (poolCloseException == null) {
-                        poolCloseException = new TarantoolException("Problem closing pooled client(s)");
-                    }
-                    poolCloseException.addSuppressed(e);
-                }
-                iterator.remove();
-            }
-            pool.notifyAll();
-            if (poolCloseException != null) {
-                throw poolCloseException;
-            }
-        }
-
-    }
-
-    private final class TarantoolClientProxy implements TarantoolClient {
-        private final TarantoolClient client;
-        private boolean closed = false;
-
-        @Override
-        public boolean isClosed() {
-            return closed;
-        }
-
-        @Override
-        public void close() {
-            synchronized (pool) {
-                if (closed) {
-                    return;
-                }
-                closed = true;
-                if (poolClosed) {
-                    client.close();
-                } else {
-                    /*
-                     * if execute some query and don`t process result we need forcibly consume last result.
-                     * If we don't, client will throw  an exception "Sending next without reading previous in next call"
-                     */
-                    consumeLastResult();
-                    pool.add(client);
-                    pool.notify();
-                }
-            }
-        }
-
-        private TarantoolException closeOnException(TarantoolException e) {
-            synchronized (pool) {
-                closed = true;
-                assert currentSize > 0;
-                currentSize--;
-                pool.notify();
-            }
-            try {
-                client.close();
-            } catch (TarantoolException closeException) {
-                e.addSuppressed(closeException);
+            if (poolClosed) {
+                throw new TarantoolException(POOL_CLOSED);
             }
-            return e;
+        } finally {
+            lock.unlock();
         }
-
-        TarantoolClientProxy(TarantoolClient client) {
-            this.client = client;
+        try {
+            return new TarantoolClientProxy(new PooledClient(clientFactory.apply(config)));
+        } catch (TarantoolException creationException) {
+            release(1);
+            throw creationException;
         }
+    }
 
-        @Override
-        public Result execute() {
-            checkClosed();
-            try {
-                return client.execute();
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+    /**
+     * Gives up places of clients that have been closed or could not be created
+     */
+    private void release(int places) {
+        lock.lock();
+        try {
+            assert currentSize >= places;
+            currentSize -= places;
+            for (int i = 0; i < places; i++) {
+                available.signal();
             }
+        } finally {
+            lock.unlock();
         }
+    }
 
-        @Override
-        public void consumeLastResult() {
-            client.consumeLastResult();
+    @Override
+    public void close() {
+        List<PooledClient> idle;
+        lock.lock();
+        try {
+            poolClosed = true;
+            idle = new ArrayList<>(pool);
+            pool.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
         }
-
-        @Override
-        public void addBatch() {
-            checkClosed();
-            try {
-                client.addBatch();
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+        if (maintainer != null && maintainer != Thread.currentThread()) {
+            maintainer.interrupt();
         }
-
-        @Override
-        public int[] executeBatchUpdate() {
-            checkClosed();
+        TarantoolException poolCloseException = null;
+        for (PooledClient pooled : idle) {
             try {
-                return client.executeBatchUpdate();
+                pooled.client.close();
             } catch (TarantoolException e) {
-                throw closeOnException(e);
+                if (poolCloseException == null) {
+                    poolCloseException = new TarantoolException("Problem closing pooled client(s)");
+                }
+                poolCloseException.addSuppressed(e);
             }
         }
-
-        @Override
-        public void executeBatch() {
-            checkClosed();
-            try {
-                client.executeBatch();
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+        if (poolCloseException != null) {
+            throw poolCloseException;
         }
+    }
 
-        @Override
-        public void select(int space, int index, int limit, int offset, Iter iterator) {
-            checkClosed();
-            try {
-                client.select(space, index, limit, offset, iterator);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+    int getIdleCount() {
+        lock.lock();
+        try {
+            return pool.size();
+        } finally {
+            lock.unlock();
         }
+    }
 
-        @Override
-        public void selectAll(int space, int limit, int offset) {
-            checkClosed();
-            try {
-                client.selectAll(space, limit, offset);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+    int getCurrentSize() {
+        lock.lock();
+        try {
+            return currentSize;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        @Override
-        public void eval(String expression) {
-            checkClosed();
+    private void runMaintainer() {
+        while (!poolClosed) {
+            maintain();
             try {
-                client.eval(expression);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+                Thread.sleep(poolConfig.getMaintenanceInterval());
+            } catch (InterruptedException e) {
+                return;
             }
         }
+    }
 
-        @Override
-        public void insert(int space) {
-            checkClosed();
-            try {
-                client.insert(space);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+    /**
+     * Closes idle clients that have exceeded max idle time or max lifetime and creates the ones missing to min idle
+     */
+    void maintain() {
+        long now = System.nanoTime();
+        long maxIdleTime = TimeUnit.MILLISECONDS.toNanos(poolConfig.getMaxIdleTime());
+        List<PooledClient> evicted = new ArrayList<>();
+        int missing;
+        lock.lock();
+        try {
+            if (poolClosed) {
+                return;
+            }
+            // from the least recently returned one
+            for (Iterator<PooledClient> iterator = pool.descendingIterator(); iterator.hasNext(); ) {
+                PooledClient pooled = iterator.next();
+                if (isExpired(pooled, now) || maxIdleTime > 0 && now - pooled.idleSince >= maxIdleTime
+                        && pool.size() > poolConfig.getMinIdle()) {
+                    iterator.remove();
+                    evicted.add(pooled);
+                }
             }
-        }
-
-        @Override
-        public void replace(int space) {
-            checkClosed();
-            try {
-                client.replace(space);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+            currentSize -= evicted.size();
+            missing = Math.min(poolConfig.getMinIdle() - pool.size(), size - currentSize);
+            if (missing > 0) {
+                currentSize += missing;
             }
+        } finally {
+            lock.unlock();
         }
-
-        @Override
-        public void delete(int space, int index) {
-            checkClosed();
-            try {
-                client.delete(space, index);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+        for (PooledClient pooled : evicted) {
+            closeQuietly(pooled.client);
         }
-
-        @Override
-        public void update(int space, int index) {
-            checkClosed();
+        for (int i = 0; i < missing; i++) {
+            TarantoolClient client;
             try {
-                client.update(space, index);
+                client = clientFactory.apply(config);
             } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
-        }
-
-        @Override
-        public void upsert(int space) {
-            checkClosed();
-            try {
-                client.upsert(space);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+                // next run will try again
+                release(missing - i);
+                return;
             }
+            addIdle(client);
         }
+    }
 
-        @Override
-        public void change(IntOp op, int field, int arg) {
-            checkClosed();
-            try {
-                client.change(op, field, arg);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
-        }
+    private boolean isExpired(PooledClient pooled, long now) {
+        return poolConfig.getMaxLifetime() > 0
+                && now - pooled.created >= TimeUnit.MILLISECONDS.toNanos(poolConfig.getMaxLifetime());
+    }
 
-        @Override
-        public void change(IntOp op, int field, long arg) {
-            checkClosed();
-            try {
-                client.change(op, field, arg);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+    /**
+     * Adds a client created in advance, its place is reserved in {@code currentSize}
+     */
+    private void addIdle(TarantoolClient client) {
+        lock.lock();
+        try {
+            if (!poolClosed && pool.size() < poolConfig.getMaxIdle()) {
+                pool.addFirst(new PooledClient(client));
+                available.signal();
+                return;
+            }
+            if (!poolClosed) {
+                // returned clients have filled the pool while this one was connecting
+                currentSize--;
+                available.signal();
             }
-
+        } finally {
+            lock.unlock();
         }
+        closeQuietly(client);
+    }
 
-        @Override
-        public void change(Op op, int field, @Nullable String arg) {
-            checkClosed();
-            try {
-                client.change(op, field, arg);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+    /**
+     * Connects a client in place of the timed out one. Server is likely stalled, so the place is not reserved while
+     * connecting and borrowers are not kept waiting for it, the client is only added if there is still room for it.
+     */
+    private void replaceInBackground() {
+        lock.lock();
+        try {
+            if (poolClosed || replacing) {
+                return;
+            }
+            replacing = true;
+        } finally {
+            lock.unlock();
+        }
+        Thread thread = new Thread(this::replace, "tarantool-pool-replace");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
+    private void replace() {
+        TarantoolClient client = null;
+        try {
+            client = clientFactory.apply(config);
+        } catch (TarantoolException e) {
+            // next borrower will try again
         }
-
-        @Override
-        public void change(Op op, int field, byte[] arg) {
-            checkClosed();
-            try {
-                client.change(op, field, arg);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+        lock.lock();
+        try {
+            replacing = false;
+            if (client != null && !poolClosed && currentSize < size && pool.size() < poolConfig.getMaxIdle()) {
+                currentSize++;
+                pool.addFirst(new PooledClient(client));
+                available.signal();
+                return;
             }
+        } finally {
+            lock.unlock();
         }
-
-        @Override
-        public void sql(String sqlQuery) {
-            checkClosed();
-            try {
-                client.sql(sqlQuery);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+        if (client != null) {
+            closeQuietly(client);
         }
+    }
 
-        @Override
-        public int executeUpdate() {
-            checkClosed();
-            try {
-                return client.executeUpdate();
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+    private static void closeQuietly(TarantoolClient client) {
+        try {
+            client.close();
+        } catch (TarantoolException e) {
+            // client is thrown away, nobody to report to
         }
+    }
 
-        @Override
-        public void ping() {
-            checkClosed();
-            try {
-                client.ping();
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
-        }
+    private static final class PooledClient {
+        final TarantoolClient client;
+        final long created = System.nanoTime();
+        long idleSince = created;
 
-        @Override
-        public void setInt(int val) {
-            checkClosed();
-            try {
-                client.setInt(val);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+        PooledClient(TarantoolClient client) {
+            this.client = client;
         }
+    }
 
-        @Override
-        public void setString(@Nullable String val) {
-            checkClosed();
-            try {
-                client.setString(val);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
-        }
+    private final class TarantoolClientProxy extends PooledClientProxy {
+        private final PooledClient pooled;
 
-        @Override
-        public void setNull() {
-            checkClosed();
-            try {
-                client.setNull();
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
-            }
+        TarantoolClientProxy(PooledClient pooled) {
+            super(pooled.client);
+            this.pooled = pooled;
         }
 
         @Override
-        public void setBoolean(boolean val) {
-            checkClosed();
-            try {
-                client.setBoolean(val);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+        public void close() {
+            if (closed) {
+                return;
             }
-        }
-
-        @Override
-        public void setDouble(double val) {
-            try {
-                client.setDouble(val);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+            closed = true;
+            if (poolClosed) {
+                client.close();
+                return;
             }
-        }
-
-        @Override
-        public void setFloat(float val) {
-            checkClosed();
-            try {
-                client.setFloat(val);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+            if (isExpired(pooled, System.nanoTime())) {
+                release(1);
+                client.close();
+                return;
             }
-        }
-
-        @Override
-        public void setLong(long val) {
-            checkClosed();
             try {
-                client.setLong(val);
+                /*
+                 * if execute some query and don`t process result we need forcibly consume last result.
+                 * If we don't, client will throw  an exception "Sending next without reading previous in next call"
+                 * Only the frame already read is skipped, but the client is not shared yet, so the lock is not needed.
+                 */
+                client.consumeLastResult();
+                client.setTimeout(config.getRequestTimeout());
             } catch (TarantoolException e) {
                 throw closeOnException(e);
             }
-        }
-
-        @Override
-        public void setBytes(byte[] bytes) {
-            checkClosed();
+            lock.lock();
             try {
-                client.setBytes(bytes);
-            } catch (TarantoolException e) {
-                throw closeOnException(e);
+                if (!poolClosed && pool.size() < poolConfig.getMaxIdle()) {
+                    pooled.idleSince = System.nanoTime();
+                    pool.addFirst(pooled);
+                    available.signal();
+                    return;
+                }
+                currentSize--;
+                available.signal();
+            } finally {
+                lock.unlock();
             }
+            client.close();
         }
 
         @Override
-        public String getVersion() {
-            checkClosed();
-            return client.getVersion();
-        }
-
-        private void checkClosed() {
-            if (closed) {
-                throw new TarantoolException(CONNECTION_CLOSED);
+        void discard(TarantoolException e) {
+            release(1);
+            if (e instanceof TarantoolTimeoutException) {
+                replaceInBackground();
             }
         }
-
     }
 }
@@ -0,0 +1,196 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.TarantoolTemplate.ResultRowMapper;
+import com.sopovs.moradanen.tarantool.core.Iter;
+import com.sopovs.moradanen.tarantool.core.Nullable;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.Util;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes all tuples of the index in pages of {@code pageSize}. Every page is a separate {@link Iter#GT} select
+ * from the key of the last published element and is sent only when the subscriber has unsatisfied demand. The page is
+ * read with {@link TarantoolClient#executeDetached()}, so the client is returned to the source before any row is
+ * published and at most one page is held in memory.
+ * <p>
+ * Index should be unique: tuples of a non-unique index that share the key of the last element of a page would be
+ * skipped by the next page, so the first page checks the index and fails the subscription with
+ * {@link TarantoolException} otherwise. Key set by {@link KeySetter} should consist of all parts of the index.
+ * <p>
+ * Requires org.reactivestreams:reactive-streams on the classpath.
+ */
+public class TarantoolSelectPublisher<T> implements Publisher<T> {
+
+    private final TarantoolClientSource clientSource;
+    private final int space;
+    private final int index;
+    private final int pageSize;
+    private final ResultRowMapper<T> mapper;
+    private final KeySetter<T> keySetter;
+
+    /**
+     * @param keySetter sets key of the index for the element, rows after that key form the next page
+     */
+    public TarantoolSelectPublisher(TarantoolClientSource clientSource, int space, int index, int pageSize,
+                                    ResultRowMapper<T> mapper, KeySetter<T> keySetter) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size should be positive, but got " + pageSize);
+        }
+        this.clientSource = clientSource;
+        this.space = space;
+        this.index = index;
+        this.pageSize = pageSize;
+        this.mapper = mapper;
+        this.keySetter = keySetter;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber is null");
+        }
+        subscriber.onSubscribe(new SelectSubscription(subscriber));
+    }
+
+    public interface KeySetter<T> {
+        void setKey(TarantoolClient client, T element);
+    }
+
+    private final class SelectSubscription implements Subscription {
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        @Nullable
+        private volatile Throwable invalidRequest;
+        @Nullable
+        private Result page;
+        @Nullable
+        private T last;
+        private boolean indexChecked = false;
+
+        SelectSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Rule 3.9: request should be positive, but got " + n);
+            } else {
+                long current;
+                do {
+                    current = requested.get();
+                    if (current == Long.MAX_VALUE) {
+                        break;
+                    }
+                } while (!requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        // only one thread at a time emits, requests from onNext or from other threads are picked up by the loop
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                emit();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            long demand = requested.get();
+            long emitted = 0;
+            while (!cancelled) {
+                Throwable error = invalidRequest;
+                if (error != null) {
+                    fail(error);
+                    return;
+                }
+                Result current = page;
+                if (current != null && !current.hasNext() && current.getSize() < pageSize) {
+                    cancelled = true;
+                    page = null;
+                    subscriber.onComplete();
+                    return;
+                }
+                if (emitted == demand) {
+                    demand = demand == Long.MAX_VALUE ? demand : requested.addAndGet(-emitted);
+                    emitted = 0;
+                    if (demand == 0) {
+                        return;
+                    }
+                    continue;
+                }
+                T element;
+                try {
+                    if (current == null || !current.hasNext()) {
+                        page = fetch();
+                        continue;
+                    }
+                    current.next();
+                    element = mapper.map(current);
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return;
+                }
+                last = element;
+                emitted++;
+                subscriber.onNext(element);
+            }
+            page = null;
+        }
+
+        private Result fetch() {
+            try (TarantoolClient client = clientSource.getClient()) {
+                if (!indexChecked) {
+                    checkUnique(client);
+                    indexChecked = true;
+                }
+                client.select(space, index, pageSize, 0, Iter.GT);
+                if (last != null) {
+                    keySetter.setKey(client, last);
+                }
+                return client.executeDetached();
+            }
+        }
+
+        private void checkUnique(TarantoolClient client) {
+            client.select(Util.SPACE_VINDEX, Util.INDEX_INDEX_PRIMARY);
+            client.setInt(space);
+            client.setInt(index);
+            Result result = client.execute();
+            if (!result.next()) {
+                throw new TarantoolException("No such index " + index + " in space " + space);
+            }
+            if (!(result instanceof AbstractResult)) {
+                throw new TarantoolException("Can not read options of index " + index + " from "
+                        + result.getClass().getName());
+            }
+            // unique is the default of box.schema.index.create, so the option may be absent
+            if (!((AbstractResult) result).getMapBoolean(4, "unique", true)) {
+                throw new TarantoolException("Index " + index + " in space " + space
+                        + " is not unique, tuples with the same key would be skipped between pages");
+            }
+        }
+
+        private void fail(Throwable error) {
+            cancelled = true;
+            page = null;
+            subscriber.onError(error);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Nullable;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static com.sopovs.moradanen.tarantool.TarantoolPooledClientSource.POOL_CLOSED;
+
+/**
+ * Pool without a global lock. Every slot is the place of one connection: it is free, holds an idle client or is empty
+ * while the client is borrowed, and is changed with CAS. Every thread returns its client to the slot it has taken it
+ * from and looks there first, so under steady load each thread keeps getting the same client without contention and
+ * scans other slots only when its own one is taken.
+ * <p>
+ * Borrower that finds neither an idle client nor a free slot in a full scan joins the queue of waiters and parks.
+ * Same as with the condition of {@link TarantoolPooledClientSource}, waiters are served in FIFO order: returned client
+ * or freed slot is handed to the oldest waiter directly instead of being put back into the slot, so no waiter starves
+ * while others keep taking clients. The queue is only touched when the pool is exhausted.
+ * <p>
+ * Same as in {@link TarantoolPooledClientSource}, client closed on a timeout or an I/O failure frees its slot at
+ * once, and the next borrower that finds no idle client connects again.
+ * <p>
+ * Slot a thread has used last is kept in a thread local of the pool. {@link #close()} removes it for the closing
+ * thread only, other threads keep theirs until they terminate, so pools should not be created per request in long
+ * living threads.
+ */
+public class TarantoolStripedClientSource implements TarantoolClientSource {
+    // marks a slot without a client that may be connected by a borrower, borrowed slot is null
+    private static final Object FREE = new Object();
+    private final TarantoolConfig config;
+    private final Function<TarantoolConfig, TarantoolClient> clientFactory;
+    private final int size;
+    private final AtomicReferenceArray<Object> slots;
+    private final ThreadLocal<int[]> homeSlot;
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private volatile boolean poolClosed = false;
+
+    public TarantoolStripedClientSource(TarantoolConfig config, Function<TarantoolConfig, TarantoolClient> clientFactory,
+                                        int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size should be positive, but got " + size);
+        }
+        this.config = config;
+        this.clientFactory = clientFactory;
+        this.size = size;
+        this.slots = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.set(i, FREE);
+        }
+        this.homeSlot = ThreadLocal.withInitial(() -> new int[]{ThreadLocalRandom.current().nextInt(size)});
+    }
+
+    public TarantoolStripedClientSource(TarantoolConfig config, int size) {
+        this(config, TarantoolClientImpl::new, size);
+    }
+
+    @Override
+    public TarantoolClient getClient() {
+        if (poolClosed) {
+            throw new TarantoolException(POOL_CLOSED);
+        }
+        int[] home = homeSlot.get();
+        TarantoolClient client = scan(home);
+        if (client != null) {
+            return client;
+        }
+        Waiter waiter = new Waiter();
+        waiters.add(waiter);
+        while (true) {
+            if (waiter.isHanded()) {
+                return take(waiter.slot, waiter.client, home);
+            }
+            if (poolClosed) {
+                giveUp(waiter);
+                throw new TarantoolException(POOL_CLOSED);
+            }
+            // client returned before the waiter has been queued is not handed to it, but is found by the scan
+            client = scan(home);
+            if (client != null) {
+                giveUp(waiter);
+                return client;
+            }
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                giveUp(waiter);
+                throw new TarantoolException("Interrupted while waiting for a free connection");
+            }
+        }
+    }
+
+    /**
+     * @return client from an idle or free slot, or {@code null} if every client is borrowed
+     */
+    @Nullable
+    private TarantoolClient scan(int[] home) {
+        while (true) {
+            int slot = home[0];
+            int free = -1;
+            for (int i = 0; i < size; i++) {
+                // read before the write, so borrowed slots of other threads are not contended
+                Object value = slots.get(slot);
+                if (value == FREE) {
+                    if (free < 0) {
+                        free = slot;
+                    }
+                } else if (value != null && slots.compareAndSet(slot, value, null)) {
+                    return take(slot, (TarantoolClient) value, home);
+                }
+                slot = slot + 1 == size ? 0 : slot + 1;
+            }
+            if (free < 0) {
+                return null;
+            }
+            if (slots.compareAndSet(free, FREE, null)) {
+                return take(free, null, home);
+            }
+            // taken by another borrower meanwhile, scan again
+        }
+    }
+
+    /**
+     * @param client idle client of the slot, or {@code null} if the slot is free and is connected now
+     */
+    private TarantoolClient take(int slot, @Nullable TarantoolClient client, int[] home) {
+        if (client == null) {
+            try {
+                client = clientFactory.apply(config);
+            } catch (TarantoolException e) {
+                release(slot, FREE);
+                throw e;
+            }
+        }
+        home[0] = slot;
+        if (poolClosed) {
+            // pool has been closed while the client was taken
+            slots.set(slot, FREE);
+            client.close();
+            throw new TarantoolException(POOL_CLOSED);
+        }
+        return new StripedClientProxy(client, slot);
+    }
+
+    /**
+     * Removes the waiter from the queue, a client or slot already handed to it is passed on
+     */
+    private void giveUp(Waiter waiter) {
+        if (waiter.cancel()) {
+            waiters.remove(waiter);
+        } else {
+            release(waiter.slot, waiter.client == null ? FREE : waiter.client);
+        }
+    }
+
+    /**
+     * Hands idle client or free slot to the oldest waiter, or puts it back into the slot if nobody waits
+     *
+     * @param value idle client or {@link #FREE}
+     */
+    private void release(int slot, Object value) {
+        while (true) {
+            Waiter waiter;
+            while ((waiter = waiters.poll()) != null) {
+                if (waiter.hand(slot, value == FREE ? null : (TarantoolClient) value)) {
+                    return;
+                }
+            }
+            if (poolClosed && value != FREE) {
+                slots.set(slot, FREE);
+                ((TarantoolClient) value).close();
+                return;
+            }
+            slots.set(slot, value);
+            // waiter queued after the poll may have scanned before the slot was set, then it is handed the value
+            if (waiters.isEmpty() || !slots.compareAndSet(slot, value, null)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        poolClosed = true;
+        homeSlot.remove();
+        for (Waiter waiter : waiters) {
+            LockSupport.unpark(waiter.thread);
+        }
+        TarantoolException poolCloseException = null;
+        for (int i = 0; i < size; i++) {
+            try {
+                closeIdle(i);
+            } catch (TarantoolException e) {
+                if (poolCloseException == null) {
+                    poolCloseException = new TarantoolException("Problem closing pooled client(s)");
+                }
+                poolCloseException.addSuppressed(e);
+            }
+        }
+        if (poolCloseException != null) {
+            throw poolCloseException;
+        }
+    }
+
+    private void closeIdle(int slot) {
+        Object value = slots.get(slot);
+        // borrower may take the client first, then it is closed by the borrower
+        if (value != null && value != FREE && slots.compareAndSet(slot, value, FREE)) {
+            ((TarantoolClient) value).close();
+        }
+    }
+
+    /**
+     * Borrower parked until a client or a free slot is handed to it
+     */
+    private static final class Waiter extends AtomicInteger {
+        private static final int WAITING = 0;
+        private static final int HANDED = 1;
+        private static final int CANCELLED = 2;
+        private final Thread thread = Thread.currentThread();
+        // written before the state is set to handed and read after it is seen
+        private int slot;
+        @Nullable
+        private TarantoolClient client;
+
+        boolean hand(int slot, @Nullable TarantoolClient client) {
+            this.slot = slot;
+            this.client = client;
+            if (compareAndSet(WAITING, HANDED)) {
+                LockSupport.unpark(thread);
+                return true;
+            }
+            return false;
+        }
+
+        boolean isHanded() {
+            return get() == HANDED;
+        }
+
+        /**
+         * @return {@code false} if the waiter has been handed a client or a slot already
+         */
+        boolean cancel() {
+            return compareAndSet(WAITING, CANCELLED);
+        }
+    }
+
+    private final class StripedClientProxy extends PooledClientProxy {
+        private final int slot;
+
+        StripedClientProxy(TarantoolClient client, int slot) {
+            super(client);
+            this.slot = slot;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (poolClosed) {
+                slots.set(slot, FREE);
+                client.close();
+                return;
+            }
+            try {
+                // unread result would break the next request of the next borrower
+                client.consumeLastResult();
+                client.setTimeout(config.getRequestTimeout());
+            } catch (TarantoolException e) {
+                throw closeOnException(e);
+            }
+            // slot stays empty while borrowed, so nobody else writes it
+            release(slot, client);
+            if (poolClosed) {
+                // pool has been closed while the client was returned
+                closeIdle(slot);
+            }
+        }
+
+        @Override
+        void discard(TarantoolException e) {
+            release(slot, FREE);
+        }
+    }
+}
@@ -24,16 +24,27 @@ public class TarantoolTemplate {
     }
 
     public <T> T selectAll(int space, ResultExtractor<T> extractor) {
+        Result result;
         try (TarantoolClient client = clientSource.getClient()) {
             client.selectAll(space);
-            return extractor.extract(client.execute());
+            if (!client.isDetachedSupported()) {
+                // rows are read from the connection, so it is held until they are extracted
+                return extractor.extract(client.execute());
+            }
+            result = client.executeDetached();
         }
+        // connection is already back in the pool while rows are extracted
+        return extractor.extract(result);
     }
 
     public <T> List<T> selectAndMapAll(int space, ResultRowMapper<T> mapper) {
         return selectAll(space, new RowMapperResultExtractor<>(mapper));
     }
 
+    public ColumnarResult selectColumnar(int space, ColumnarResult.Column... columns) {
+        return selectAll(space, result -> new ColumnarResult(result, columns));
+    }
+
     public interface ResultExtractor<T> {
         T extract(Result result);
     }
@@ -0,0 +1,16 @@
+package com.sopovs.moradanen.tarantool;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class mapped to a tuple. With tarantool-driver-processor on the annotation processor path
+ * a {@link TupleMapper} named {@code <ClassName>TupleMapper} is generated next to the class, fields
+ * of the tuple are the ones annotated with {@link Field}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface TarantoolTuple {
+}
@@ -0,0 +1,67 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Nullable;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+
+import static com.sopovs.moradanen.tarantool.TarantoolClientImpl.createSocket;
+
+interface Transport extends Closeable, RequestOutput {
+
+    void readFully(byte[] bytes, int offset, int length) throws IOException;
+
+    /**
+     * Limits reads (and writes where supported) from now on until the next call. Once the time is over the transport
+     * is closed and {@link com.sopovs.moradanen.tarantool.core.TarantoolTimeoutException} is thrown.
+     *
+     * @param millis timeout in milliseconds, 0 means no timeout
+     */
+    void setTimeout(int millis);
+
+    boolean isClosed();
+
+    static Transport connect(TarantoolConfig config) {
+        if (config.getTransport() == TransportType.SOCKET) {
+            return new SocketTransport(createSocket(config.getHost(), config.getPort(), config.getConnectTimeout()));
+        }
+        SocketChannel channel = null;
+        try {
+            if (config.getTransport() == TransportType.UNIX) {
+                String path = config.getUnixSocket();
+                if (path == null) {
+                    throw new TarantoolException("Unix socket path is not set");
+                }
+                SocketAddress address = UnixSockets.address(path);
+                channel = UnixSockets.open();
+                // local connect does not wait on the network, the greeting is still limited by the connect timeout
+                channel.connect(address);
+            } else {
+                channel = SocketChannel.open();
+                channel.socket().connect(address(config.getHost(), config.getPort()), config.getConnectTimeout());
+            }
+            return new ChannelTransport(channel);
+        } catch (IOException e) {
+            TarantoolException exception = new TarantoolException(e);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException closeException) {
+                    exception.addSuppressed(closeException);
+                }
+            }
+            throw exception;
+        }
+    }
+
+    static InetSocketAddress address(@Nullable String host, int port) {
+        return host == null
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                : new InetSocketAddress(host, port);
+    }
+}
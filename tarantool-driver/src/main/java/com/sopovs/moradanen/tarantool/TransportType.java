@@ -0,0 +1,16 @@
+package com.sopovs.moradanen.tarantool;
+
+public enum TransportType {
+    /**
+     * Blocking {@link java.net.Socket} with buffered streams
+     */
+    SOCKET,
+    /**
+     * Blocking {@link java.nio.channels.SocketChannel} with gathering writes
+     */
+    CHANNEL,
+    /**
+     * {@link java.nio.channels.SocketChannel} connected to {@link TarantoolConfig#getUnixSocket()}, Java 16+ only
+     */
+    UNIX
+}
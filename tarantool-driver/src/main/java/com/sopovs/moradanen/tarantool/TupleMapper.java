@@ -0,0 +1,19 @@
+package com.sopovs.moradanen.tarantool;
+
+/**
+ * Maps objects to and from tuples, generated for classes annotated with {@link TarantoolTuple}
+ */
+public interface TupleMapper<T> extends TarantoolTemplate.ResultRowMapper<T> {
+
+    /**
+     * Sets all fields of the value as arguments of the current request, e.g. after
+     * {@link TarantoolClient#insert(int)}
+     */
+    void encode(TarantoolClient client, T value);
+
+    /**
+     * @return object with the fields of the current row of the result
+     */
+    @Override
+    T map(Result result);
+}
@@ -0,0 +1,57 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Unix domain socket channels of Java 16+ looked up through reflection, since the driver is built for Java 8
+ */
+final class UnixSockets {
+    private static final String UNSUPPORTED = "Unix domain sockets require Java 16 or newer";
+
+    private UnixSockets() {
+    }
+
+    static SocketAddress address(String path) throws IOException {
+        Method of;
+        try {
+            of = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+        } catch (ReflectiveOperationException e) {
+            throw new TarantoolException(UNSUPPORTED, e);
+        }
+        return (SocketAddress) invoke(of, path);
+    }
+
+    static SocketChannel open() throws IOException {
+        Method open;
+        ProtocolFamily unix;
+        try {
+            open = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+            unix = StandardProtocolFamily.valueOf("UNIX");
+        } catch (NoSuchMethodException | IllegalArgumentException e) {
+            throw new TarantoolException(UNSUPPORTED, e);
+        }
+        return (SocketChannel) invoke(open, unix);
+    }
+
+    private static Object invoke(Method method, Object argument) throws IOException {
+        try {
+            return method.invoke(null, argument);
+        } catch (IllegalAccessException e) {
+            throw new TarantoolException(UNSUPPORTED, e);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new TarantoolException(cause);
+        }
+    }
+}
@@ -2,16 +2,22 @@ package com.sopovs.moradanen.tarantool;
 
 import com.sopovs.moradanen.tarantool.core.TarantoolException;
 import org.junit.jupiter.api.Test;
+import org.msgpack.core.MessageBufferPacker;
 import org.msgpack.core.MessagePack;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class AbstractResultTest {
 
 
     @Test
     void testNextNotCalled() {
-        AbstractResult result = new AbstractResult(MessagePack.newDefaultUnpacker(new byte[0])) {
+        AbstractResult result = new AbstractResult(new byte[0], 0, false) {
             @Override
             public int getSize() {
                 return 0;
@@ -30,4 +36,188 @@ class AbstractResultTest {
         assertThrows(TarantoolException.class, () -> result.getDouble(0));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testDecodeFields() throws IOException {
+        char[] longChars = new char[70_000];
+        Arrays.fill(longChars, 'x');
+        String longString = new String(longChars);
+        byte[] bytes = new byte[300];
+        Arrays.fill(bytes, (byte) 7);
+
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packArrayHeader(2);
+
+        packer.packArrayHeader(18);
+        packer.packInt(5);
+        packer.packInt(-5);
+        packer.packInt(200);
+        packer.packInt(-100);
+        packer.packInt(60_000);
+        packer.packInt(-30_000);
+        packer.packLong(4_000_000_000L);
+        packer.packLong(Long.MIN_VALUE);
+        packer.packFloat(1.5f);
+        packer.packDouble(2.25);
+        packer.packString("short");
+        packer.packString(longString);
+        packer.packBinaryHeader(bytes.length);
+        packer.writePayload(bytes);
+        packer.packNil();
+        packer.packBoolean(true);
+        packer.packMapHeader(1);
+        packer.packString("key");
+        packer.packArrayHeader(2);
+        packer.packInt(1);
+        packer.packExtensionTypeHeader((byte) 1, 4);
+        packer.writePayload(new byte[4]);
+        packer.packBigInteger(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE));
+        packer.packString("after");
+
+        packer.packArrayHeader(1);
+        packer.packString("second");
+        packer.close();
+        byte[] frame = packer.toByteArray();
+
+        AbstractResult result = new AbstractResult(frame, frame.length, false) {
+            {
+                rowsStart(1);
+            }
+
+            @Override
+            public int getSize() {
+                return 2;
+            }
+        };
+
+        assertTrue(result.next());
+        assertEquals(18, result.currentSize());
+        assertEquals(5, result.getInt(0));
+        assertEquals(-5, result.getInt(1));
+        assertEquals(200, result.getInt(2));
+        assertEquals(-100, result.getInt(3));
+        assertEquals(60_000, result.getInt(4));
+        assertEquals(-30_000, result.getInt(5));
+        assertEquals(4_000_000_000L, result.getLong(6));
+        assertThrows(TarantoolException.class, () -> result.getInt(6));
+        assertEquals(Long.MIN_VALUE, result.getLong(7));
+        assertEquals(1.5f, result.getFloat(8));
+        assertEquals(1.5, result.getDouble(8));
+        assertEquals(2.25, result.getDouble(9));
+        assertEquals("short", result.getString(10));
+        assertEquals(longString, result.getString(11));
+        assertArrayEquals(bytes, result.getBytes(12));
+        ByteBuffer byteBuffer = result.getByteBuffer(12);
+        assertEquals(bytes.length, byteBuffer.remaining());
+        assertTrue(byteBuffer.isReadOnly());
+        assertTrue(result.isNull(13));
+        assertNull(result.getString(13));
+        assertTrue(result.getBoolean(14));
+        assertThrows(TarantoolException.class, () -> result.getLong(16));
+        assertEquals("after", result.getString(17));
+
+        assertEquals("Expected integer, but got string", assertThrows(TarantoolException.class,
+                () -> result.getInt(10)).getMessage());
+        assertEquals("Expected binary, but got null", assertThrows(TarantoolException.class,
+                () -> result.getBytes(13)).getMessage());
+        assertEquals("Expected float, but got integer", assertThrows(TarantoolException.class,
+                () -> result.getDouble(0)).getMessage());
+        assertEquals("Expected boolean, but got map", assertThrows(TarantoolException.class,
+                () -> result.getBoolean(15)).getMessage());
+        assertThrows(IndexOutOfBoundsException.class, () -> result.getInt(18));
+
+        assertTrue(result.next());
+        assertEquals(1, result.currentSize());
+        assertEquals("second", result.getString(0));
+        assertFalse(result.next());
+    }
+
+    @Test
+    void testMapBoolean() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packArrayHeader(1);
+        packer.packArrayHeader(3);
+        packer.packMapHeader(3);
+        packer.packInt(1);
+        packer.packString("int key");
+        packer.packString("unique");
+        packer.packBoolean(false);
+        packer.packString("after");
+        packer.packBoolean(true);
+        packer.packMapHeader(1);
+        packer.packString("other");
+        packer.packArrayHeader(0);
+        packer.packString("not a map");
+        packer.close();
+        byte[] frame = packer.toByteArray();
+
+        AbstractResult result = new AbstractResult(frame, frame.length, false) {
+            {
+                rowsStart(1);
+            }
+
+            @Override
+            public int getSize() {
+                return 1;
+            }
+        };
+
+        assertTrue(result.next());
+        assertFalse(result.getMapBoolean(0, "unique", true));
+        assertTrue(result.getMapBoolean(0, "after", false));
+        assertTrue(result.getMapBoolean(1, "unique", true));
+        assertEquals("Expected map, but got string", assertThrows(TarantoolException.class,
+                () -> result.getMapBoolean(2, "unique", true)).getMessage());
+    }
+
+    @Test
+    void testConsumeDoesNotDecodeRows() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packArrayHeader(1);
+        packer.packString("first");
+        packer.close();
+        byte[] row = packer.toByteArray();
+        byte[] frame = Arrays.copyOf(row, row.length + 1);
+        // never used byte in msgpack, decoding of the second row would fail
+        frame[row.length] = (byte) 0xc1;
+
+        AbstractResult result = new AbstractResult(frame, frame.length, false) {
+            @Override
+            public int getSize() {
+                return 2;
+            }
+        };
+        assertTrue(result.next());
+        result.consume();
+        assertFalse(result.hasNext());
+        assertFalse(result.next());
+        assertEquals("first", result.getString(0));
+    }
+
+    @Test
+    void testSlicedByteBuffer() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packArrayHeader(2);
+        packer.packInt(1);
+        packer.packBinaryHeader(3);
+        packer.writePayload(new byte[]{1, 2, 3});
+        packer.close();
+        byte[] frame = packer.toByteArray();
+
+        AbstractResult result = new AbstractResult(frame, frame.length, true) {
+            @Override
+            public int getSize() {
+                return 1;
+            }
+        };
+        assertTrue(result.next());
+        ByteBuffer byteBuffer = result.getByteBuffer(1);
+        assertTrue(byteBuffer.isReadOnly());
+        assertEquals(0, byteBuffer.position());
+        assertEquals(3, byteBuffer.remaining());
+        assertEquals(1, byteBuffer.get(0));
+        assertEquals(3, byteBuffer.get(2));
+
+        frame[frame.length - 1] = 42;
+        assertEquals(42, byteBuffer.get(2));
+    }
+}
@@ -0,0 +1,146 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.ColumnarResult.Column;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import org.junit.jupiter.api.Test;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.sopovs.moradanen.tarantool.TarantoolClientImplTest.createTestSpace;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarResultTest {
+
+    @Test
+    void testDecode() throws IOException {
+        int size = 100;
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packArrayHeader(size);
+        for (int i = 0; i < size; i++) {
+            boolean missing = i % 10 == 9;
+            packer.packArrayHeader(missing ? 3 : 5);
+            packer.packLong(i * 1_000_000_000L);
+            packer.packInt(i);
+            packer.packString("ignored");
+            if (missing) {
+                continue;
+            }
+            if (i % 7 == 0) {
+                packer.packNil();
+            } else {
+                packer.packDouble(i / 2.0);
+            }
+            if (i % 5 == 0) {
+                packer.packNil();
+            } else {
+                packer.packString("Строка" + i);
+            }
+        }
+        packer.close();
+        byte[] frame = packer.toByteArray();
+        AbstractResult result = new AbstractResult(frame, frame.length, false) {
+            {
+                rowsStart(3); // array16 header
+            }
+
+            @Override
+            public int getSize() {
+                return size;
+            }
+        };
+
+        ColumnarResult columnar = new ColumnarResult(result, Column.longs(0), Column.ints(1), Column.doubles(3),
+                Column.strings(4));
+        assertFalse(result.hasNext());
+        assertEquals(size, columnar.getSize());
+        assertEquals(4, columnar.getColumnCount());
+        assertEquals(3, columnar.getColumn(2).getField());
+        assertEquals(ColumnarResult.ColumnType.DOUBLE, columnar.getColumn(2).getType());
+
+        long[] longs = columnar.getLongs(0);
+        int[] ints = columnar.getInts(1);
+        double[] doubles = columnar.getDoubles(2);
+        assertNull(columnar.getNulls(0));
+        assertNull(columnar.getNulls(1));
+        for (int i = 0; i < size; i++) {
+            boolean missing = i % 10 == 9;
+            assertEquals(i * 1_000_000_000L, longs[i]);
+            assertEquals(i, ints[i]);
+            assertFalse(columnar.isNull(0, i));
+
+            boolean nullDouble = missing || i % 7 == 0;
+            assertEquals(nullDouble, columnar.isNull(2, i));
+            assertEquals(nullDouble ? 0.0 : i / 2.0, doubles[i]);
+
+            boolean nullString = missing || i % 5 == 0;
+            assertEquals(nullString, columnar.isNull(3, i));
+            assertEquals(nullString ? null : "Строка" + i, columnar.getString(3, i));
+        }
+        int[] offsets = columnar.getStringOffsets(3);
+        assertEquals(0, offsets[0]);
+        assertEquals(0, offsets[1]);
+        assertEquals("Строка1".getBytes(StandardCharsets.UTF_8).length, offsets[2]);
+        assertArrayEquals("Строка1".getBytes(StandardCharsets.UTF_8),
+                Arrays.copyOfRange(columnar.getStringBytes(3), offsets[1], offsets[2]));
+
+        assertThrows(TarantoolException.class, () -> columnar.getInts(0));
+        assertThrows(TarantoolException.class, () -> columnar.getStringBytes(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> columnar.isNull(0, size));
+    }
+
+    @Test
+    void testStringBytesCappedByFrame() throws IOException {
+        MessageBufferPacker packer = MessagePack.newDefaultBufferPacker();
+        packer.packArrayHeader(1);
+        packer.packString("a");
+        packer.close();
+        byte[] frame = packer.toByteArray();
+        AbstractResult result = new AbstractResult(frame, frame.length, false) {
+            @Override
+            public int getSize() {
+                return 1;
+            }
+        };
+
+        ColumnarResult columnar = new ColumnarResult(result, Column.strings(0));
+        assertEquals("a", columnar.getString(0, 0));
+        assertTrue(columnar.getStringBytes(0).length <= frame.length);
+    }
+
+    @Test
+    void testSelectColumnar() {
+        try (TarantoolPooledClientSource clientSource = new TarantoolPooledClientSource("localhost", 3301,
+                "admin", "javapass", 1)) {
+            try (TarantoolClient client = clientSource.getClient()) {
+                createTestSpace(client);
+                for (int i = 0; i < 10; i++) {
+                    client.insert("javatest");
+                    client.setInt(i);
+                    client.setString("Foobar" + i);
+                    client.addBatch();
+                }
+                client.executeBatch();
+            }
+            try {
+                TarantoolTemplate template = new TarantoolTemplate(clientSource);
+                ColumnarResult columnar = template.selectColumnar(template.space("javatest"),
+                        Column.ints(0), Column.strings(1));
+                assertEquals(10, columnar.getSize());
+                long sum = 0;
+                for (int i = 0; i < columnar.getSize(); i++) {
+                    sum += columnar.getInts(0)[i];
+                    assertEquals("Foobar" + columnar.getInts(0)[i], columnar.getString(1, i));
+                }
+                assertEquals(45, sum);
+            } finally {
+                try (TarantoolClient client = clientSource.getClient()) {
+                    client.evalFully("box.space.javatest:drop()");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.Iter;
+import com.sopovs.moradanen.tarantool.core.Util;
+import org.junit.jupiter.api.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestEncoderTest {
+
+    @Test
+    void testSyncWrapsToZero() throws IOException {
+        RequestEncoder encoder = new RequestEncoder(Integer.MAX_VALUE - 1);
+        assertEquals(Integer.MAX_VALUE, pingSync(encoder));
+        assertEquals(0, pingSync(encoder));
+        assertEquals(1, pingSync(encoder));
+    }
+
+    @Test
+    void testTemplateSyncWrapsToZero() throws IOException {
+        RequestEncoder encoder = new RequestEncoder(Integer.MAX_VALUE - 1);
+        RequestTemplate template = RequestTemplate.select(Util.SPACE_VSPACE, 0);
+        assertEquals(Integer.MAX_VALUE, requestSync(encoder, template));
+        assertEquals(0, requestSync(encoder, template));
+    }
+
+    @Test
+    void testSchemaIdSentWithCheckedRequestOnly() throws IOException {
+        RequestEncoder encoder = new RequestEncoder();
+        encoder.checkSchema(42);
+        CapturingOutput output = select(encoder);
+        assertEquals(Long.valueOf(42), header(output).get(Util.KEY_SCHEMA_ID));
+        assertEquals(Long.valueOf(512), body(output).get(Util.KEY_SPACE));
+
+        output = select(encoder);
+        assertNull(header(output).get(Util.KEY_SCHEMA_ID));
+
+        encoder.checkSchema(42);
+        output = new CapturingOutput();
+        encoder.eval("return 1");
+        encoder.finishQueryWithArguments(output);
+        encoder.flush(output);
+        assertNull(header(output).get(Util.KEY_SCHEMA_ID));
+        assertNull(header(select(encoder)).get(Util.KEY_SCHEMA_ID));
+    }
+
+    @Test
+    void testResendCheckedFrameWithNewSpace() throws IOException {
+        RequestEncoder encoder = new RequestEncoder();
+        select(encoder);
+        // sent without schema id
+        assertNull(encoder.lastCheckedFrame());
+
+        encoder.checkSchema(42);
+        byte[] sent = select(encoder).bytes.toByteArray();
+        RequestEncoder.CheckedFrame checked = encoder.lastCheckedFrame();
+        assertNotNull(checked);
+        // lookup of the space in the new schema
+        select(encoder);
+
+        CapturingOutput resent = new CapturingOutput();
+        encoder.resend(resent, checked, 513, 43);
+        assertEquals(sent.length, resent.bytes.size());
+        Map<Integer, Long> header = header(resent);
+        assertEquals(Long.valueOf(43), header.get(Util.KEY_SCHEMA_ID));
+        assertEquals(Long.valueOf(encoder.getSync()), header.get(Util.KEY_SYNC));
+        assertEquals(Long.valueOf(513), body(resent).get(Util.KEY_SPACE));
+
+        encoder.checkSchema(42);
+        select(encoder);
+        encoder.ping();
+        encoder.finishQuery(new CapturingOutput());
+        // not after the next request
+        assertNull(encoder.lastCheckedFrame());
+    }
+
+    private static CapturingOutput select(RequestEncoder encoder) throws IOException {
+        CapturingOutput output = new CapturingOutput();
+        encoder.select(512, 0, 10, 0, Iter.EQ);
+        encoder.setInt(1);
+        encoder.finishQueryWithArguments(output);
+        encoder.flush(output);
+        return output;
+    }
+
+    /**
+     * @return integer values of the body, the key of the select is skipped
+     */
+    private static Map<Integer, Long> body(CapturingOutput output) throws IOException {
+        MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(output.bytes.toByteArray());
+        unpacker.unpackLong();
+        header(unpacker);
+        Map<Integer, Long> body = new HashMap<>();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            int key = unpacker.unpackInt();
+            if (key == Util.KEY_KEY) {
+                unpacker.skipValue();
+            } else {
+                body.put(key, unpacker.unpackLong());
+            }
+        }
+        return body;
+    }
+
+    private static Map<Integer, Long> header(CapturingOutput output) throws IOException {
+        MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(output.bytes.toByteArray());
+        // size prefix of the frame
+        unpacker.unpackLong();
+        return header(unpacker);
+    }
+
+    private static Map<Integer, Long> header(MessageUnpacker unpacker) throws IOException {
+        Map<Integer, Long> header = new HashMap<>();
+        int size = unpacker.unpackMapHeader();
+        for (int i = 0; i < size; i++) {
+            header.put(unpacker.unpackInt(), unpacker.unpackLong());
+        }
+        return header;
+    }
+
+    private static int pingSync(RequestEncoder encoder) throws IOException {
+        CapturingOutput output = new CapturingOutput();
+        encoder.ping();
+        encoder.finishQuery(output);
+        return sentSync(encoder, output);
+    }
+
+    private static int requestSync(RequestEncoder encoder, RequestTemplate template) throws IOException {
+        CapturingOutput output = new CapturingOutput();
+        encoder.request(template);
+        encoder.setInt(1);
+        encoder.finishQueryWithArguments(output);
+        return sentSync(encoder, output);
+    }
+
+    private static int sentSync(RequestEncoder encoder, CapturingOutput output) throws IOException {
+        encoder.flush(output);
+        MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(output.bytes.toByteArray());
+        // size prefix of the frame
+        unpacker.unpackLong();
+        Iproto.Header header = new Iproto.Header();
+        Iproto.unpackHeader(unpacker, header);
+        assertEquals(encoder.getSync(), header.getSync());
+        return header.getSync();
+    }
+
+    private static final class CapturingOutput implements RequestOutput {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public void write(ByteBuffer[] buffers, int length) {
+            for (int i = 0; i < length; i++) {
+                ByteBuffer buffer = buffers[i];
+                bytes.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.TarantoolServerException;
+import com.sopovs.moradanen.tarantool.core.Util;
+import org.junit.jupiter.api.Test;
+import org.msgpack.core.MessagePack;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.sopovs.moradanen.tarantool.TarantoolClientImplTest.createTestSpace;
+import static com.sopovs.moradanen.tarantool.test.TestUtil.getEnvTarantoolVersion;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarantoolAsyncClientTest {
+
+    @Test
+    void testFailInFlightOnCloseBetweenResponses() throws Exception {
+        PipedOutputStream server = new PipedOutputStream();
+        PipeTransport transport = new PipeTransport(new PipedInputStream(server, 1024));
+        byte[] greeting = new byte[Iproto.GREETING_SIZE];
+        Arrays.fill(greeting, (byte) ' ');
+        byte[] version = "Tarantool 2.3.1".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(version, 0, greeting, 0, version.length);
+        server.write(greeting);
+
+        TarantoolAsyncClient client = new TarantoolAsyncClient(transport, new TarantoolConfig(null, 0, null, null));
+        client.ping();
+        CompletableFuture<Void> unanswered = client.ping();
+        // transport is not closed, so only the flag stops the reader after the next response
+        client.close();
+        // response to the first ping: header {code: 0, sync: 1} and empty body
+        server.write(new byte[]{MessagePack.Code.UINT32, 0, 0, 0, 6, (byte) 0x82, 0, 0, 1, 1, (byte) 0x80});
+        server.flush();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> unanswered.get(1, TimeUnit.SECONDS));
+        assertEquals(TarantoolAsyncClient.CONNECTION_CLOSED, e.getCause().getMessage());
+    }
+
+    private static final class PipeTransport implements Transport {
+        private final DataInputStream in;
+
+        PipeTransport(InputStream in) {
+            this.in = new DataInputStream(in);
+        }
+
+        @Override
+        public void readFully(byte[] bytes, int offset, int length) throws IOException {
+            in.readFully(bytes, offset, length);
+        }
+
+        @Override
+        public void setTimeout(int millis) {
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public void write(ByteBuffer[] buffers, int length) {
+            for (int i = 0; i < length; i++) {
+                buffers[i].position(buffers[i].limit());
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void testPing() throws Exception {
+        try (TarantoolAsyncClient client = new TarantoolAsyncClient("localhost", 3301, "admin", "javapass")) {
+            client.ping().get();
+        }
+    }
+
+    @Test
+    void testGetVersion() {
+        try (TarantoolAsyncClient client = new TarantoolAsyncClient("localhost", 3301, "admin", "javapass")) {
+            assertTrue(client.getVersion().startsWith(getEnvTarantoolVersion()));
+        }
+    }
+
+    @Test
+    void testPipelinedSelects() throws Exception {
+        try (TarantoolAsyncClient client = new TarantoolAsyncClient("localhost", 3301, "admin", "javapass")) {
+            pipelinedSelectsInternal(client);
+        }
+    }
+
+    @Test
+    void testPipelinedSelectsOverChannel() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withTransport(TransportType.CHANNEL);
+        try (TarantoolAsyncClient client = new TarantoolAsyncClient(config)) {
+            pipelinedSelectsInternal(client);
+        }
+    }
+
+    @Test
+    void testPipelinedSelectsOverChannelWithConnectTimeout() throws Exception {
+        // channel is back in blocking mode after connect, so the reader thread and senders do not share a selector
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withTransport(TransportType.CHANNEL)
+                .withConnectTimeout(1000);
+        try (TarantoolAsyncClient client = new TarantoolAsyncClient(config)) {
+            // enough requests in flight to block both sending and reading
+            List<CompletableFuture<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                client.selectAll(Util.SPACE_VSPACE, 10, 0);
+                futures.add(client.execute());
+            }
+            for (CompletableFuture<Result> future : futures) {
+                assertEquals(10, future.get(10, TimeUnit.SECONDS).getSize());
+            }
+        }
+    }
+
+    private static void pipelinedSelectsInternal(TarantoolAsyncClient client) throws Exception {
+        List<CompletableFuture<Result>> futures = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            client.selectAll(Util.SPACE_VSPACE, i, 0);
+            futures.add(client.execute());
+        }
+        for (int i = 1; i <= 10; i++) {
+            Result result = futures.get(i - 1).get();
+            assertEquals(i, result.getSize());
+            result.consume();
+            assertFalse(result.hasNext());
+        }
+    }
+
+    @Test
+    void testInsertAndSelect() throws Exception {
+        try (TarantoolClient syncClient = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> syncClient.evalFully("box.space.javatest:drop()");
+             TarantoolAsyncClient client = new TarantoolAsyncClient("localhost", 3301, "admin", "javapass")) {
+            createTestSpace(syncClient);
+            int space = syncClient.space("javatest");
+
+            List<CompletableFuture<Result>> inserts = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                client.insert(space);
+                client.setInt(i);
+                client.setString("Foo" + i);
+                inserts.add(client.execute());
+            }
+            CompletableFuture.allOf(inserts.toArray(new CompletableFuture[0])).get();
+
+            client.select(space, 0);
+            client.setInt(5);
+            Result select = client.execute().get();
+            assertEquals(1, select.getSize());
+            assertTrue(select.next());
+            assertEquals(5, select.getInt(0));
+            assertEquals("Foo5", select.getString(1));
+        }
+    }
+
+    @Test
+    void testErrorDoesNotBreakConnection() throws Exception {
+        try (TarantoolAsyncClient client = new TarantoolAsyncClient("localhost", 3301, "admin", "javapass")) {
+            client.eval("error('async failure')");
+            CompletableFuture<Result> failed = client.execute();
+            client.selectAll(Util.SPACE_VSPACE, 1, 0);
+            CompletableFuture<Result> succeeded = client.execute();
+
+            ExecutionException exception = assertThrows(ExecutionException.class, failed::get);
+            // same as with the blocking client, so the error is not mistaken for a broken connection
+            assertTrue(exception.getCause() instanceof TarantoolServerException);
+            assertTrue(exception.getCause().getMessage().contains("async failure"));
+
+            Result result = succeeded.get();
+            assertEquals(1, result.getSize());
+            result.consume();
+        }
+    }
+
+    @Test
+    void testCloseFailsPending() throws Exception {
+        TarantoolAsyncClient client = new TarantoolAsyncClient("localhost", 3301, "admin", "javapass");
+        assertFalse(client.isClosed());
+        client.ping().get();
+        client.close();
+        assertTrue(client.isClosed());
+        client.selectAll(Util.SPACE_VSPACE);
+        TarantoolException exception = assertThrows(TarantoolException.class, client::execute);
+        assertEquals(TarantoolAsyncClient.CONNECTION_CLOSED, exception.getMessage());
+    }
+}
@@ -105,6 +105,16 @@ class TarantoolClientImplExceptionsTest {
         }
     }
 
+    @Test
+    void testCallUndefined() {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
+            client.call(new PreparedCall("no_such_function"));
+            TarantoolException exception = assertThrows(TarantoolException.class, client::execute);
+            assertEquals("Procedure 'no_such_function' is not defined", exception.getMessage());
+            client.ping();
+        }
+    }
+
     @Test
     void testSetIntWithoutInsert() {
         testSetWithoutAction(c -> c.setInt(1));
@@ -1,14 +1,22 @@
 package com.sopovs.moradanen.tarantool;
 
 import com.sopovs.moradanen.tarantool.core.IntOp;
+import com.sopovs.moradanen.tarantool.core.Iter;
 import com.sopovs.moradanen.tarantool.core.Op;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.TarantoolServerException;
+import com.sopovs.moradanen.tarantool.core.TarantoolTimeoutException;
 import com.sopovs.moradanen.tarantool.core.Util;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
+import static com.sopovs.moradanen.tarantool.test.TestUtil.getEnvTarantoolSocket;
 import static com.sopovs.moradanen.tarantool.test.TestUtil.getEnvTarantoolVersion;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 
@@ -38,10 +46,38 @@ class TarantoolClientImplTest {
         client.selectAll(Util.SPACE_VSPACE);
         Result result = client.execute();
         assertTrue(result.getSize() > 0);
+        assertTrue(result.getByteSize() > 0);
         result.consume();
         assertFalse(result.hasNext());
     }
 
+    @Test
+    void testSelectOverChannel() {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withTransport(TransportType.CHANNEL);
+        try (TarantoolClient client = new TarantoolClientImpl(config)) {
+            client.ping();
+            selectInternal(client);
+        }
+    }
+
+    @Test
+    void testSelectOverUnixSocket() {
+        String socket = getEnvTarantoolSocket();
+        assumeTrue(socket != null);
+        TarantoolConfig config = new TarantoolConfig(null, 0, "admin", "javapass").withUnixSocket(socket);
+        try (TarantoolClient client = new TarantoolClientImpl(config)) {
+            selectInternal(client);
+        }
+    }
+
+    @Test
+    void testMissingUnixSocket() {
+        TarantoolConfig config = new TarantoolConfig(null, 0, "admin", "javapass")
+                .withUnixSocket("/nonexistent/tarantool.sock");
+        assertThrows(TarantoolException.class, () -> new TarantoolClientImpl(config));
+    }
+
     @Test
     void testSelectByName() {
         try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
@@ -83,6 +119,55 @@ class TarantoolClientImplTest {
         }
     }
 
+    @Test
+    void testSchemaCache() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass");
+        SchemaCache schemaCache = config.getSchemaCache();
+        try (TarantoolClient client = new TarantoolClientImpl(config);
+             TarantoolClient other = new TarantoolClientImpl(config);
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            int space = client.space("javatest");
+            assertEquals(0, client.index(space, "primary"));
+            assertEquals(Integer.valueOf(space), schemaCache.space("javatest"));
+            assertEquals(Integer.valueOf(0), schemaCache.index(space, "primary"));
+            assertEquals(space, other.space("javatest"));
+
+            client.evalFully("box.space.javatest:drop()");
+            assertNull(schemaCache.space("javatest"));
+            client.evalFully("box.schema.space.create('javatest')");
+            client.evalFully("box.space.javatest:create_index('primary', {type = 'hash', parts = {1, 'num'}})");
+            int recreated = other.space("javatest");
+            assertNotEquals(space, recreated);
+            assertEquals(recreated, client.space("javatest"));
+        }
+    }
+
+    @Test
+    void testRebuildOnSchemaChange() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass");
+        try (TarantoolClient client = new TarantoolClientImpl(config);
+             TarantoolClient other = new TarantoolClientImpl(config);
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            int space = client.space("javatest");
+
+            client.select("javatest", 0);
+            // space is recreated with another id after the lookup, the select is rebuilt for the new one
+            other.evalFully("box.space.javatest:drop()");
+            createTestSpace(other);
+            other.insert("javatest");
+            other.setInt(1);
+            other.setString("recreated");
+            other.execute();
+            client.setInt(1);
+            Result result = client.execute();
+            assertTrue(result.next());
+            assertEquals("recreated", result.getString(1));
+            assertNotEquals(space, client.space("javatest"));
+        }
+    }
+
     @Test
     void testEval() {
         try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
@@ -92,6 +177,95 @@ class TarantoolClientImplTest {
         }
     }
 
+    @Test
+    void testCall() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("echo = nil").consume()) {
+            client.evalFully("function echo(...) return {...} end").consume();
+
+            client.call("echo");
+            client.setInt(42);
+            client.setString("Foobar");
+            Result result = client.execute();
+            assertEquals(1, result.getSize());
+            assertTrue(result.next());
+            assertEquals(42, result.getInt(0));
+            assertEquals("Foobar", result.getString(1));
+        }
+    }
+
+    @Test
+    void testPreparedCall() throws Exception {
+        PreparedCall echo = new PreparedCall("echo");
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("echo = nil").consume()) {
+            client.evalFully("function echo(...) return {...} end").consume();
+
+            // sync goes over several msgpack int sizes
+            for (int i = 0; i < 300; i++) {
+                client.call(echo);
+                client.setInt(i);
+                Result result = client.execute();
+                assertTrue(result.next());
+                assertEquals(i, result.getInt(0));
+            }
+
+            for (int i = 0; i < 10; i++) {
+                client.call(echo);
+                client.setInt(i);
+                client.addBatch();
+            }
+            client.executeBatch();
+        }
+    }
+
+    @Test
+    void testRequestTemplates() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            int space = client.space("javatest");
+            RequestTemplate insert = RequestTemplate.insert(space);
+            RequestTemplate select = RequestTemplate.select(space, 0);
+            RequestTemplate selectGreater = RequestTemplate.select(space, 0, 2, Iter.GT);
+            RequestTemplate delete = RequestTemplate.delete(space, 0);
+
+            for (int i = 0; i < 5; i++) {
+                client.request(insert);
+                client.setInt(i);
+                client.setString("Foo" + i);
+                client.addBatch();
+            }
+            client.executeBatch();
+
+            for (int i = 0; i < 5; i++) {
+                client.request(select);
+                client.setInt(i);
+                Result result = client.execute();
+                assertTrue(result.next());
+                assertEquals("Foo" + i, result.getString(1));
+            }
+
+            client.request(selectGreater);
+            client.setInt(1);
+            Result greater = client.execute();
+            assertEquals(2, greater.getSize());
+            assertTrue(greater.next());
+            assertEquals(2, greater.getInt(0));
+            greater.consume();
+
+            client.request(delete);
+            client.setInt(0);
+            Result deleted = client.execute();
+            assertEquals(1, deleted.getSize());
+            deleted.consume();
+
+            client.request(select);
+            client.setInt(0);
+            assertEquals(0, client.execute().getSize());
+        }
+    }
+
     @Test
     void testInsert() throws Exception {
         try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
@@ -206,8 +380,22 @@ class TarantoolClientImplTest {
 
     @Test
     void testInsertBatch() throws Exception {
-        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
-             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
+            insertBatchInternal(client);
+        }
+    }
+
+    @Test
+    void testInsertBatchOverChannel() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withTransport(TransportType.CHANNEL);
+        try (TarantoolClient client = new TarantoolClientImpl(config)) {
+            insertBatchInternal(client);
+        }
+    }
+
+    private static void insertBatchInternal(TarantoolClient client) throws Exception {
+        try (AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
             createTestSpace(client);
             int space = client.space("javatest");
             for (int i = 0; i < 10; i++) {
@@ -229,6 +417,148 @@ class TarantoolClientImplTest {
         }
     }
 
+    @Test
+    void testWindowedBatch() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withBatchWindow(4, 256);
+        try (TarantoolClient client = new TarantoolClientImpl(config);
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            int space = client.space("javatest");
+            for (int i = 0; i < 1000; i++) {
+                client.insert(space);
+                client.setInt(i);
+                client.setString(i % 10 == 0 ? "Foobar-" + i + "-Foobar-Foobar-Foobar-Foobar" : "Foo" + i);
+                client.addBatch();
+            }
+            int[] counts = client.executeBatchUpdate();
+            assertEquals(1000, counts.length);
+            for (int count : counts) {
+                assertEquals(1, count);
+            }
+
+            client.selectAll(space);
+            Result result = client.execute();
+            assertEquals(1000, result.getSize());
+            result.consume();
+        }
+    }
+
+    @Test
+    void testBatchOfBigResponses() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            int space = client.space("javatest");
+            char[] chars = new char[1024];
+            Arrays.fill(chars, 'x');
+            String value = new String(chars);
+            for (int i = 0; i < 20; i++) {
+                client.insert(space);
+                client.setInt(i);
+                client.setString(value);
+                client.execute().consume();
+            }
+            // tiny requests with 20 KiB responses, so the window is limited by the expected response sizes
+            for (int i = 0; i < 1000; i++) {
+                client.selectAll(space);
+                client.addBatch();
+            }
+            int[] counts = client.executeBatchUpdate();
+            assertEquals(1000, counts.length);
+            for (int count : counts) {
+                assertEquals(20, count);
+            }
+        }
+    }
+
+    @Test
+    void testBatchErrorIsDeferred() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withBatchWindow(2, 1 << 20);
+        try (TarantoolClient client = new TarantoolClientImpl(config);
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            int space = client.space("javatest");
+            for (int i = 0; i < 10; i++) {
+                client.insert(space);
+                // duplicate key in the second request
+                client.setInt(i == 1 ? 0 : i);
+                client.addBatch();
+            }
+            assertThrows(TarantoolException.class, client::executeBatch);
+
+            // all responses are read, so the connection is still usable
+            client.selectAll(space);
+            Result result = client.execute();
+            assertEquals(9, result.getSize());
+            result.consume();
+        }
+    }
+
+    @Test
+    void testFinishedResultNotReadableAfterNextRequest() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            insertInternal(client);
+            client.select("javatest", 0);
+            client.setInt(1);
+            Result result = client.execute();
+            assertTrue(result.next());
+            assertEquals("Foobar", result.getString(2));
+
+            client.ping();
+            assertEquals(AbstractResult.RESULT_INVALIDATED,
+                    assertThrows(TarantoolException.class, () -> result.getString(2)).getMessage());
+
+            client.select("javatest", 0);
+            client.setInt(1);
+            Result detached = client.executeDetached();
+            assertTrue(detached.next());
+            client.ping();
+            assertEquals("Foobar", detached.getString(2));
+        }
+    }
+
+    @Test
+    void testServerErrorCode() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            insertInternal(client);
+            client.insert(client.space("javatest"));
+            client.setInt(1);
+            client.setString("Duplicate");
+            TarantoolServerException exception = assertThrows(TarantoolServerException.class, client::execute);
+            // ER_TUPLE_FOUND
+            assertEquals(3, exception.getCode());
+
+            testValue(client, 0);
+        }
+    }
+
+    @Test
+    void testExecuteAfterFailedBatch() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            int space = client.space("javatest");
+            for (int i = 0; i < 2; i++) {
+                client.insert(space);
+                client.setInt(0);
+                client.addBatch();
+            }
+            client.insert(space);
+            client.setInt(1);
+            assertThrows(TarantoolServerException.class, client::execute);
+
+            // the request after the batch is executed as well
+            client.selectAll(space);
+            Result result = client.execute();
+            assertEquals(2, result.getSize());
+            result.consume();
+        }
+    }
+
     @Test
     void testUpdate() throws Exception {
         try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
@@ -280,6 +610,136 @@ class TarantoolClientImplTest {
         }
     }
 
+    @Test
+    void testInsertLargeBytesBatch() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            int space = client.space("javatest");
+            byte[] bytes = new byte[100_000];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) i;
+            }
+            for (int i = 0; i < 5; i++) {
+                client.insert(space);
+                client.setInt(i);
+                client.setBytes(bytes);
+                client.addBatch();
+            }
+            client.executeBatch();
+
+            client.select(space, 0);
+            client.setInt(4);
+            Result select = client.execute();
+            assertEquals(1, select.getSize());
+            select.next();
+            assertArrayEquals(bytes, select.getBytes(1));
+        }
+    }
+
+    @Test
+    void testHugeResponse() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
+            hugeResponseInternal(client);
+        }
+    }
+
+    @Test
+    void testHugeResponseOverChannel() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withTransport(TransportType.CHANNEL);
+        try (TarantoolClient client = new TarantoolClientImpl(config)) {
+            hugeResponseInternal(client);
+        }
+    }
+
+    private static void hugeResponseInternal(TarantoolClient client) throws Exception {
+        try (AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+            byte[] bytes = new byte[3 << 20];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) i;
+            }
+            client.insert("javatest");
+            client.setInt(1);
+            client.setBytes(bytes);
+            client.execute().consume();
+
+            for (int i = 0; i < 2; i++) {
+                client.select("javatest", 0);
+                client.setInt(1);
+                Result select = client.execute();
+                assertTrue(select.getByteSize() > bytes.length);
+                assertTrue(select.next());
+                assertArrayEquals(bytes, select.getBytes(1));
+            }
+            client.ping();
+        }
+    }
+
+    @Test
+    void testSlicedByteBuffer() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withSlicedByteBuffers(true);
+        try (TarantoolClient client = new TarantoolClientImpl(config);
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            createTestSpace(client);
+
+            byte[] bytes = new byte[]{1, 2, 3, 4};
+            client.insert("javatest");
+            client.setInt(1);
+            client.setBytes(bytes);
+            client.execute().consume();
+
+            client.select("javatest", 0);
+            client.setInt(1);
+            Result select = client.execute();
+            assertTrue(select.next());
+            ByteBuffer byteBuffer = select.getByteBuffer(1);
+            assertTrue(byteBuffer.isReadOnly());
+            assertEquals(ByteBuffer.wrap(bytes), byteBuffer);
+        }
+    }
+
+    @Test
+    void testExecuteDetached() throws Exception {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            insertInternal(client);
+
+            client.selectAll("javatest");
+            Result detached = client.executeDetached();
+
+            // would fail with "Sending next without reading previous" for an attached result
+            client.insert("javatest");
+            client.setInt(2);
+            client.setInt(1);
+            client.setString("Barbaz");
+            client.execute().consume();
+
+            assertEquals(1, detached.getSize());
+            assertTrue(detached.next());
+            assertEquals(1, detached.getInt(0));
+            assertEquals("Foobar", detached.getString(2));
+        }
+    }
+
+    @Test
+    void testDetachedResults() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withDetachedResults(true);
+        Result select;
+        try (TarantoolClient client = new TarantoolClientImpl(config);
+             AutoCloseable ignored = () -> client.evalFully("box.space.javatest:drop()")) {
+            insertInternal(client);
+            client.selectAll("javatest");
+            select = client.execute();
+        }
+        assertTrue(select.next());
+        assertEquals(1, select.getInt(0));
+        assertEquals("Foobar", select.getString(2));
+    }
+
     @Test
     void testUpdateBytes() throws Exception {
         try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
@@ -456,6 +916,69 @@ class TarantoolClientImplTest {
         });
     }
 
+    private void preparedSqlTest(TarantoolConfig config, Consumer<TarantoolClient> work) {
+        assumeTrue(Util.isVersionAtLeast(getEnvTarantoolVersion(), 2, 3));
+        try (TarantoolClient client = new TarantoolClientImpl(config)) {
+            client.sql("CREATE TABLE TABLE1 (COLUMN1 INTEGER PRIMARY KEY, COLUMN2 VARCHAR(100))");
+            assertEquals(1L, client.executeUpdate());
+
+            work.accept(client);
+
+            client.sql("DROP TABLE TABLE1");
+            assertEquals(1L, client.executeUpdate());
+        }
+    }
+
+    @Test
+    void testPreparedInsertAndSelect() {
+        preparedSqlTest(new TarantoolConfig("localhost", 3301, "admin", "javapass"), client -> {
+            long insert = client.prepare("INSERT INTO TABLE1 VALUES(?,?)");
+            assertEquals(insert, client.prepare("INSERT INTO TABLE1 VALUES(?,?)"));
+            for (int i = 0; i < 3; i++) {
+                client.sql(insert);
+                client.setInt(i);
+                client.setString("A" + i);
+                assertEquals(1L, client.executeUpdate());
+            }
+
+            client.sql(client.prepare("select * from TABLE1"));
+            SqlResult result = (SqlResult) client.execute();
+            assertEquals(3, result.getSize());
+            assertTrue(result.next());
+            assertEquals(0, result.getInt(result.getIndex("COLUMN1")));
+            assertEquals("A0", result.getString(result.getIndex("COLUMN2")));
+            result.consume();
+        });
+    }
+
+    @Test
+    void testPreparedStatementEviction() {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withStatementCacheSize(1);
+        preparedSqlTest(config, client -> {
+            long count = client.prepare("SELECT COUNT(*) FROM TABLE1");
+            client.prepare("select * from TABLE1");
+
+            // unprepared on the server when the second statement did not fit the cache
+            client.sql(count);
+            assertThrows(TarantoolException.class, client::execute);
+
+            client.sql(client.prepare("SELECT COUNT(*) FROM TABLE1"));
+            Result result = client.execute();
+            assertTrue(result.next());
+            assertEquals(0, result.getInt(0));
+        });
+    }
+
+    @Test
+    void testPrepareOnOldVersion() {
+        assumeFalse(Util.isVersionAtLeast(getEnvTarantoolVersion(), 2, 3));
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
+            assertThrows(TarantoolException.class, () -> client.prepare("SELECT 1"));
+            client.ping();
+        }
+    }
+
     @Test
     void testIsClosed() {
         try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
@@ -465,4 +988,75 @@ class TarantoolClientImplTest {
             assertTrue(client.isClosed());
         }
     }
+
+    @Test
+    void testRequestTimeout() {
+        requestTimeoutInternal(new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withRequestTimeout(100));
+    }
+
+    @Test
+    void testRequestTimeoutOverChannel() {
+        requestTimeoutInternal(new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withTransport(TransportType.CHANNEL)
+                .withRequestTimeout(100));
+    }
+
+    private static void requestTimeoutInternal(TarantoolConfig config) {
+        try (TarantoolClient client = new TarantoolClientImpl(config)) {
+            client.evalFully("function sleep(ms) require('fiber').sleep(ms / 1000) end").consume();
+            client.call("sleep");
+            client.setInt(10);
+            client.execute().consume();
+
+            client.call("sleep");
+            client.setInt(1000);
+            assertThrows(TarantoolTimeoutException.class, client::execute);
+            // the late response would be read by the next request, so the connection is closed
+            assertTrue(client.isClosed());
+        }
+        try (TarantoolClient client = new TarantoolClientImpl(config)) {
+            client.setTimeout(0);
+            client.call("sleep");
+            client.setInt(200);
+            client.execute().consume();
+            client.evalFully("sleep = nil").consume();
+        }
+    }
+
+    @Test
+    void testBigRequestAfterIdleTimeout() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass")
+                .withTransport(TransportType.CHANNEL)
+                .withRequestTimeout(200);
+        try (TarantoolClient client = new TarantoolClientImpl(config)) {
+            client.ping();
+            Thread.sleep(400);
+            // written before the flush, so the deadline of the ping must not be applied to it
+            char[] chars = new char[8 << 20];
+            Arrays.fill(chars, 'a');
+            client.eval("return #...");
+            client.setString(new String(chars));
+            Result result = client.execute();
+            assertTrue(result.next());
+            assertEquals(chars.length, result.getInt(0));
+            assertFalse(client.isClosed());
+        }
+    }
+
+    @Test
+    void testSetTimeout() {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
+            assertThrows(IllegalArgumentException.class, () -> client.setTimeout(-1));
+            client.evalFully("function sleep(ms) require('fiber').sleep(ms / 1000) end").consume();
+            client.setTimeout(100);
+            client.call("sleep");
+            client.setInt(1000);
+            assertThrows(TarantoolTimeoutException.class, client::execute);
+            assertTrue(client.isClosed());
+        }
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass")) {
+            client.evalFully("sleep = nil").consume();
+        }
+    }
 }
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static com.sopovs.moradanen.tarantool.TarantoolPooledClientSource.CONNECTION_CLOSED;
@@ -188,6 +189,333 @@ class TarantoolPooledClientSourceTest {
         }
     }
 
+    @Test
+    void testParallelClientCreation() throws Exception {
+        CountDownLatch created = new CountDownLatch(POOL_SIZE);
+        Function<TarantoolConfig, TarantoolClient> clientFactory = config -> {
+            created.countDown();
+            try {
+                // every client waits for the others, so creation under the pool lock would time out
+                if (!created.await(1, TimeUnit.SECONDS)) {
+                    throw new TarantoolException("Clients are created one by one");
+                }
+            } catch (InterruptedException e) {
+                throw new TarantoolException(e);
+            }
+            return new DummyTarantoolClient(config);
+        };
+        ExecutorService threadPool = Executors.newFixedThreadPool(POOL_SIZE);
+        List<Future<TarantoolClient>> futures = new ArrayList<>();
+        try (TarantoolClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG, clientFactory, POOL_SIZE)) {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                futures.add(threadPool.submit(pool::getClient));
+            }
+            for (Future<TarantoolClient> future : futures) {
+                future.get().close();
+            }
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    @Test
+    void testReturnWhileCreating() throws Exception {
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        Function<TarantoolConfig, TarantoolClient> clientFactory = config -> {
+            if (created.incrementAndGet() == 2) {
+                creating.countDown();
+                try {
+                    returned.await();
+                } catch (InterruptedException e) {
+                    throw new TarantoolException(e);
+                }
+            }
+            return new DummyTarantoolClient(config);
+        };
+        ExecutorService threadPool = Executors.newSingleThreadExecutor();
+        try (TarantoolClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG, clientFactory, 2)) {
+            TarantoolClient first = pool.getClient();
+            Future<TarantoolClient> second = threadPool.submit(pool::getClient);
+            creating.await();
+            // neither returning nor borrowing the idle client waits for the slow connect
+            first.close();
+            pool.getClient().close();
+            returned.countDown();
+            second.get().close();
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    @Test
+    void testFailedDrainFreesPlace() {
+        AtomicInteger created = new AtomicInteger();
+        Function<TarantoolConfig, TarantoolClient> clientFactory = config -> {
+            created.incrementAndGet();
+            return new DummyTarantoolClient(config) {
+                @Override
+                public void consumeLastResult() {
+                    throw new TarantoolException("Broken connection");
+                }
+            };
+        };
+        try (TarantoolClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG, clientFactory, 1)) {
+            TarantoolClient client = pool.getClient();
+            assertThrows(TarantoolException.class, client::close);
+            assertTrue(client.isClosed());
+            // would wait forever if the failed client kept its place
+            assertThrows(TarantoolException.class, pool.getClient()::close);
+        }
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void testReplaceTimedOutConnection() throws Exception {
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass").withRequestTimeout(100);
+        try (TarantoolClientSource pool = new TarantoolPooledClientSource(config, 1)) {
+            try (TarantoolClient client = pool.getClient()) {
+                client.evalFully("function sleep(ms) require('fiber').sleep(ms / 1000) end").consume();
+            }
+            try (TarantoolClient client = pool.getClient()) {
+                client.call("sleep");
+                client.setInt(1000);
+                assertThrows(TarantoolTimeoutException.class, client::execute);
+                assertTrue(client.isClosed());
+            }
+            try (TarantoolClient client = pool.getClient()) {
+                client.ping();
+                // overridden timeout is only for the borrowed client
+                client.setTimeout(0);
+                client.call("sleep");
+                client.setInt(200);
+                client.execute().consume();
+            }
+            try (TarantoolClient client = pool.getClient()) {
+                client.call("sleep");
+                client.setInt(1000);
+                assertThrows(TarantoolTimeoutException.class, client::execute);
+            }
+            try (TarantoolClient client = pool.getClient()) {
+                client.evalFully("sleep = nil").consume();
+            }
+        }
+    }
+
+    @Test
+    void testReplaceTimedOutInBackground() {
+        AtomicInteger created = new AtomicInteger();
+        Function<TarantoolConfig, TarantoolClient> clientFactory = config -> {
+            created.incrementAndGet();
+            return new DummyTarantoolClient(config) {
+                @Override
+                public void ping() {
+                    throw new TarantoolTimeoutException("Request timed out");
+                }
+            };
+        };
+        try (TarantoolPooledClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG, clientFactory, 1)) {
+            TarantoolClient client = pool.getClient();
+            assertThrows(TarantoolTimeoutException.class, client::ping);
+            assertTrue(client.isClosed());
+            // the replacement is connected in the background and takes the place once connected
+            assertTrue(pool.getCurrentSize() <= 1);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (pool.getIdleCount() == 0 && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            assertEquals(1, pool.getIdleCount());
+            assertEquals(2, created.get());
+            pool.getClient().close();
+            assertEquals(2, created.get());
+        }
+    }
+
+    @Test
+    void testStalledReplacementDoesNotHoldPlace() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch stalled = new CountDownLatch(1);
+        Function<TarantoolConfig, TarantoolClient> clientFactory = config -> {
+            if (created.incrementAndGet() == 2) {
+                try {
+                    stalled.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new TarantoolException("Connection timed out");
+            }
+            return new DummyTarantoolClient(config) {
+                @Override
+                public void ping() {
+                    throw new TarantoolTimeoutException("Request timed out");
+                }
+            };
+        };
+        try (TarantoolPooledClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG, clientFactory, 1)) {
+            TarantoolClient client = pool.getClient();
+            assertThrows(TarantoolTimeoutException.class, client::ping);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (created.get() < 2 && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            assertEquals(2, created.get());
+            // borrower connects on its own while the replacement is stalled
+            TarantoolClient next = pool.getClient();
+            assertEquals(3, created.get());
+            assertThrows(TarantoolTimeoutException.class, next::ping);
+            // the stalled replacement is not joined by another one
+            assertEquals(3, created.get());
+            stalled.countDown();
+        }
+    }
+
+    @Test
+    void testServerErrorKeepsConnection() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        Function<TarantoolConfig, TarantoolClient> clientFactory = config -> {
+            created.incrementAndGet();
+            return new TarantoolClientImpl(config);
+        };
+        TarantoolConfig config = new TarantoolConfig("localhost", 3301, "admin", "javapass");
+        try (TarantoolClientSource pool = new TarantoolPooledClientSource(config, clientFactory, 1)) {
+            try (TarantoolClient client = pool.getClient()) {
+                TarantoolClientImplTest.createTestSpace(client);
+                for (int i = 0; i < 2; i++) {
+                    client.insert(client.space("javatest"));
+                    client.setInt(1);
+                    if (i == 0) {
+                        client.execute().consume();
+                    } else {
+                        assertThrows(TarantoolServerException.class, client::execute);
+                    }
+                }
+                assertFalse(client.isClosed());
+                client.ping();
+            }
+            try (TarantoolClient client = pool.getClient()) {
+                client.evalFully("box.space.javatest:drop()").consume();
+            }
+        }
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void testLazyCreation() {
+        AtomicInteger created = new AtomicInteger();
+        try (TarantoolClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG, countingFactory(created),
+                POOL_SIZE)) {
+            assertEquals(0, created.get());
+            pool.getClient().close();
+            pool.getClient().close();
+            assertEquals(1, created.get());
+        }
+    }
+
+    @Test
+    void testMinIdle() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        TarantoolPoolConfig poolConfig = new TarantoolPoolConfig(POOL_SIZE).withMinIdle(2).withMaintenanceInterval(10);
+        try (TarantoolPooledClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG, countingFactory(created),
+                poolConfig)) {
+            for (int i = 0; i < 100 && pool.getIdleCount() < 2; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, pool.getIdleCount());
+            // borrowed client is replaced by the maintainer
+            TarantoolClient client = pool.getClient();
+            for (int i = 0; i < 100 && created.get() < 3; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, created.get());
+            client.close();
+            assertEquals(3, pool.getIdleCount());
+        }
+    }
+
+    @Test
+    void testMaxIdle() {
+        AtomicInteger closed = new AtomicInteger();
+        TarantoolPoolConfig poolConfig = new TarantoolPoolConfig(POOL_SIZE).withMaxIdle(1);
+        try (TarantoolPooledClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG,
+                closeCountingFactory(closed), poolConfig)) {
+            TarantoolClient first = pool.getClient();
+            TarantoolClient second = pool.getClient();
+            first.close();
+            second.close();
+            assertEquals(1, closed.get());
+            assertEquals(1, pool.getIdleCount());
+            assertEquals(1, pool.getCurrentSize());
+        }
+    }
+
+    @Test
+    void testMaxIdleTime() throws Exception {
+        AtomicInteger closed = new AtomicInteger();
+        // long interval, so only explicit maintain() runs evict
+        TarantoolPoolConfig poolConfig = new TarantoolPoolConfig(POOL_SIZE).withMinIdle(1).withMaxIdleTime(50)
+                .withMaintenanceInterval(60_000);
+        try (TarantoolPooledClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG,
+                closeCountingFactory(closed), poolConfig)) {
+            List<TarantoolClient> clients = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                clients.add(pool.getClient());
+            }
+            for (TarantoolClient client : clients) {
+                client.close();
+            }
+            assertEquals(3, pool.getIdleCount());
+            pool.maintain();
+            assertEquals(0, closed.get());
+            Thread.sleep(100);
+            pool.maintain();
+            assertEquals(2, closed.get());
+            assertEquals(1, pool.getIdleCount());
+            assertEquals(1, pool.getCurrentSize());
+        }
+    }
+
+    @Test
+    void testMaxLifetime() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        TarantoolPoolConfig poolConfig = new TarantoolPoolConfig(1).withMaxLifetime(50)
+                .withMaintenanceInterval(60_000);
+        try (TarantoolClientSource pool = new TarantoolPooledClientSource(DUMMY_CONFIG, countingFactory(created),
+                poolConfig)) {
+            TarantoolClient client = pool.getClient();
+            Thread.sleep(100);
+            client.close();
+            pool.getClient().close();
+            assertEquals(2, created.get());
+        }
+    }
+
+    @Test
+    void testPoolConfigValidation() {
+        assertThrows(IllegalArgumentException.class, () -> new TarantoolPoolConfig(-1));
+        assertThrows(IllegalArgumentException.class, () -> new TarantoolPoolConfig(2).withMinIdle(3));
+        assertThrows(IllegalArgumentException.class, () -> new TarantoolPoolConfig(2).withMaxIdle(3));
+        assertThrows(IllegalArgumentException.class, () -> new TarantoolPoolConfig(2).withMinIdle(2).withMaxIdle(1));
+        assertThrows(IllegalArgumentException.class, () -> new TarantoolPoolConfig(2).withMaxIdleTime(-1));
+        assertThrows(IllegalArgumentException.class, () -> new TarantoolPoolConfig(2).withMaintenanceInterval(0));
+    }
+
+    private static Function<TarantoolConfig, TarantoolClient> countingFactory(AtomicInteger created) {
+        return config -> {
+            created.incrementAndGet();
+            return new DummyTarantoolClient(config);
+        };
+    }
+
+    private static Function<TarantoolConfig, TarantoolClient> closeCountingFactory(AtomicInteger closed) {
+        return config -> new DummyTarantoolClient(config) {
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        };
+    }
+
     static class DummyTarantoolClient implements TarantoolClient {
 
         DummyTarantoolClient(@SuppressWarnings("unused") TarantoolConfig config) {
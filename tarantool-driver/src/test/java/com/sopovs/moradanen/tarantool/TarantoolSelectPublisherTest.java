@@ -0,0 +1,160 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sopovs.moradanen.tarantool.TarantoolClientImplTest.createTestSpace;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarantoolSelectPublisherTest {
+
+    private TarantoolClientSource clientSource;
+
+    @BeforeEach
+    void setUp() {
+        clientSource = new TarantoolPooledClientSource("localhost", 3301, "admin", "javapass", 1);
+        try (TarantoolClient client = clientSource.getClient()) {
+            createTestSpace(client);
+            for (int i = 0; i < 10; i++) {
+                client.insert("javatest");
+                client.setInt(i);
+                client.setString("Foobar" + i);
+                client.addBatch();
+            }
+            client.executeBatch();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        try (TarantoolClient client = clientSource.getClient()) {
+            client.evalFully("box.space.javatest:drop()");
+        } finally {
+            clientSource.close();
+        }
+    }
+
+    private TarantoolSelectPublisher<Integer> publisher(int pageSize) {
+        int space;
+        try (TarantoolClient client = clientSource.getClient()) {
+            space = client.space("javatest");
+        }
+        return new TarantoolSelectPublisher<>(clientSource, space, 0, pageSize,
+                result -> result.getInt(0), (client, id) -> client.setInt(id));
+    }
+
+    @Test
+    void testPublishAll() {
+        for (int pageSize : new int[]{1, 3, 5, 10, 100}) {
+            RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+            publisher(pageSize).subscribe(subscriber);
+            assertTrue(subscriber.completed);
+            assertNull(subscriber.error);
+            assertEquals(range(10), subscriber.elements);
+        }
+    }
+
+    @Test
+    void testRejectNonUniqueIndex() {
+        int space;
+        try (TarantoolClient client = clientSource.getClient()) {
+            client.evalFully("box.space.javatest:create_index('name', {unique = false, parts = {2, 'str'}})");
+            space = client.space("javatest");
+        }
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        new TarantoolSelectPublisher<>(clientSource, space, 1, 3,
+                result -> result.getInt(0), (client, id) -> client.setInt(id)).subscribe(subscriber);
+        assertTrue(subscriber.error instanceof TarantoolException);
+        assertTrue(subscriber.elements.isEmpty());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void testBackpressure() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher(3).subscribe(subscriber);
+        assertTrue(subscriber.elements.isEmpty());
+
+        subscriber.subscription.request(4);
+        assertEquals(range(4), subscriber.elements);
+        assertFalse(subscriber.completed);
+
+        // page is detached, so the only pooled connection is free between requests
+        try (TarantoolClient client = clientSource.getClient()) {
+            client.ping();
+        }
+
+        subscriber.subscription.request(100);
+        assertEquals(range(10), subscriber.elements);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void testCancel() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(2);
+        publisher(5).subscribe(subscriber);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(100);
+        assertEquals(range(2), subscriber.elements);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    void testNonPositiveRequest() {
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        publisher(5).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.elements.isEmpty());
+    }
+
+    private static List<Integer> range(int size) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    private static final class RecordingSubscriber implements Subscriber<Integer> {
+        private final long initialRequest;
+        private final List<Integer> elements = new ArrayList<>();
+        private Subscription subscription;
+        private boolean completed = false;
+        private Throwable error;
+
+        private RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(Integer element) {
+            elements.add(element);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.sopovs.moradanen.tarantool;
+
+import com.sopovs.moradanen.tarantool.TarantoolPooledClientSourceTest.DummyCreationThrowingClient;
+import com.sopovs.moradanen.tarantool.TarantoolPooledClientSourceTest.DummyTarantoolClient;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.TarantoolTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.sopovs.moradanen.tarantool.TarantoolPooledClientSource.CONNECTION_CLOSED;
+import static com.sopovs.moradanen.tarantool.TarantoolPooledClientSource.POOL_CLOSED;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarantoolStripedClientSourceTest {
+    private static final TarantoolConfig DUMMY_CONFIG = new TarantoolConfig(null, 0, null, null);
+    private static final int POOL_SIZE = 5;
+
+    private static TarantoolStripedClientSource createPool(int size) {
+        return new TarantoolStripedClientSource(DUMMY_CONFIG, DummyTarantoolClient::new, size);
+    }
+
+    @Test
+    void testGetAllConnections() throws Exception {
+        try (TarantoolClientSource pool = createPool(POOL_SIZE)) {
+            ExecutorService threadPool = Executors.newFixedThreadPool(POOL_SIZE);
+            CountDownLatch latch = new CountDownLatch(POOL_SIZE);
+            for (int i = 0; i < POOL_SIZE; i++) {
+                threadPool.execute(() -> {
+                    try (TarantoolClient ignored = pool.getClient()) {
+                        latch.countDown();
+                        try {
+                            latch.await();
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+            }
+            threadPool.shutdown();
+            threadPool.awaitTermination(1, TimeUnit.SECONDS);
+            assertEquals(0, latch.getCount());
+        }
+    }
+
+    @Test
+    void testReuseConnection() {
+        AtomicInteger created = new AtomicInteger();
+        try (TarantoolClientSource pool = new TarantoolStripedClientSource(DUMMY_CONFIG, config -> {
+            created.incrementAndGet();
+            return new DummyTarantoolClient(config);
+        }, 2)) {
+            for (int i = 0; i < 10; i++) {
+                pool.getClient().close();
+            }
+        }
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void testBoundedSizeUnderContention() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger maxBorrowed = new AtomicInteger();
+        ExecutorService threadPool = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        try (TarantoolClientSource pool = new TarantoolStripedClientSource(DUMMY_CONFIG, config -> {
+            created.incrementAndGet();
+            return new DummyTarantoolClient(config);
+        }, 4)) {
+            for (int i = 0; i < 16; i++) {
+                futures.add(threadPool.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        try (TarantoolClient ignored = pool.getClient()) {
+                            maxBorrowed.accumulateAndGet(borrowed.incrementAndGet(), Math::max);
+                            borrowed.decrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            threadPool.shutdown();
+        }
+        assertTrue(created.get() <= 4);
+        assertTrue(maxBorrowed.get() <= 4);
+    }
+
+    @Test
+    void testGetAllConnectionsAfterException() {
+        AtomicInteger created = new AtomicInteger();
+        try (TarantoolClientSource pool = new TarantoolStripedClientSource(DUMMY_CONFIG, config -> {
+            created.incrementAndGet();
+            return new DummyTarantoolClient(config);
+        }, 1)) {
+            try (TarantoolClient client = pool.getClient()) {
+                assertThrows(TarantoolException.class, client::ping);
+                assertTrue(client.isClosed());
+            }
+            // failed client is replaced with a new one, instead of blocking on the full pool
+            pool.getClient().close();
+        }
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    void testTimedOutConnectionFreesPlace() {
+        AtomicInteger created = new AtomicInteger();
+        try (TarantoolClientSource pool = new TarantoolStripedClientSource(DUMMY_CONFIG, config -> {
+            created.incrementAndGet();
+            return new DummyTarantoolClient(config) {
+                @Override
+                public void ping() {
+                    throw new TarantoolTimeoutException("Request timed out");
+                }
+            };
+        }, 1)) {
+            TarantoolClient client = pool.getClient();
+            assertThrows(TarantoolTimeoutException.class, client::ping);
+            assertTrue(client.isClosed());
+            assertEquals(1, created.get());
+            pool.getClient().close();
+            assertEquals(2, created.get());
+        }
+    }
+
+    @Test
+    void testUseConnectionAfterClose() {
+        try (TarantoolClientSource pool = createPool(1)) {
+            TarantoolClient client = pool.getClient();
+            client.close();
+
+            TarantoolException exception = assertThrows(TarantoolException.class, client::ping);
+            assertEquals(CONNECTION_CLOSED, exception.getMessage());
+        }
+    }
+
+    @Test
+    void testCloseReturnedAfterPoolClose() {
+        AtomicBoolean closed = new AtomicBoolean();
+        TarantoolClientSource pool = new TarantoolStripedClientSource(DUMMY_CONFIG,
+                config -> new DummyTarantoolClient(config) {
+                    @Override
+                    public void close() {
+                        closed.set(true);
+                    }
+                }, 1);
+        TarantoolClient client = pool.getClient();
+        pool.close();
+        assertFalse(closed.get());
+        client.close();
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void testWaiterGetsReturnedConnection() throws Exception {
+        ExecutorService threadPool = Executors.newSingleThreadExecutor();
+        try (TarantoolClientSource pool = createPool(1)) {
+            TarantoolClient client = pool.getClient();
+            Future<?> waiter = threadPool.submit(() -> pool.getClient().close());
+            Thread.sleep(10);
+            assertFalse(waiter.isDone());
+            client.close();
+            waiter.get(1, TimeUnit.SECONDS);
+        }
+        threadPool.shutdown();
+    }
+
+    @Test
+    void testReturnedConnectionGoesToOldestWaiter() throws Exception {
+        ExecutorService threadPool = Executors.newFixedThreadPool(2);
+        try (TarantoolClientSource pool = createPool(1)) {
+            TarantoolClient client = pool.getClient();
+            AtomicReference<Thread> firstThread = new AtomicReference<>();
+            CountDownLatch firstGot = new CountDownLatch(1);
+            CountDownLatch firstRelease = new CountDownLatch(1);
+            Future<?> first = threadPool.submit(() -> {
+                firstThread.set(Thread.currentThread());
+                try (TarantoolClient ignored = pool.getClient()) {
+                    firstGot.countDown();
+                    firstRelease.await();
+                }
+                return null;
+            });
+            awaitParked(firstThread);
+            client.close();
+            // handed to the first waiter, so the late borrower waits even if it comes before the first one wakes up
+            Future<?> second = threadPool.submit(() -> pool.getClient().close());
+            assertTrue(firstGot.await(1, TimeUnit.SECONDS));
+            Thread.sleep(10);
+            assertFalse(second.isDone());
+            firstRelease.countDown();
+            first.get(1, TimeUnit.SECONDS);
+            second.get(1, TimeUnit.SECONDS);
+        }
+        threadPool.shutdown();
+    }
+
+    private static void awaitParked(AtomicReference<Thread> thread) throws InterruptedException {
+        while (thread.get() == null || thread.get().getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    void releaseWaitersOnPoolClose() throws Exception {
+        ExecutorService threadPool = Executors.newFixedThreadPool(POOL_SIZE);
+        List<Future<TarantoolException>> futures = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(POOL_SIZE);
+        TarantoolClientSource pool = createPool(1);
+        TarantoolClient client = pool.getClient();
+        try {
+            for (int i = 0; i < POOL_SIZE; i++) {
+                futures.add(threadPool.submit(() -> {
+                    latch.countDown();
+                    return assertThrows(TarantoolException.class, pool::getClient);
+                }));
+            }
+            latch.await();
+        } finally {
+            pool.close();
+        }
+        threadPool.shutdown();
+        for (Future<TarantoolException> future : futures) {
+            assertEquals(POOL_CLOSED, future.get(1, TimeUnit.SECONDS).getMessage());
+        }
+        client.close();
+    }
+
+    @Test
+    void testRejectEmptyPool() {
+        assertThrows(IllegalArgumentException.class, () -> createPool(0));
+    }
+
+    @Test
+    void testThrowingClientCreation() {
+        try (TarantoolClientSource pool = new TarantoolStripedClientSource(DUMMY_CONFIG,
+                DummyCreationThrowingClient::new, 1)) {
+            assertThrows(TarantoolException.class, pool::getClient);
+            //should not hang on failing to get two connections from pool of size 1
+            assertThrows(TarantoolException.class, pool::getClient);
+        }
+    }
+}
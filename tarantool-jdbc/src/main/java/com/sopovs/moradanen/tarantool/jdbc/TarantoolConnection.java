@@ -12,9 +12,32 @@ import java.util.concurrent.Executor;
 public class TarantoolConnection implements Connection {
 
     private final TarantoolClient client;
+    private final boolean prepareSupported;
+    // batch of the client may have requests added, new statements can not be prepared until it is executed
+    private boolean batchOpen = false;
 
     public TarantoolConnection(TarantoolClient client) {
         this.client = client;
+        this.prepareSupported = client.isPrepareSupported();
+    }
+
+    /**
+     * @return whether prepared statements are prepared on the server, older versions and clients without
+     * {@link TarantoolClient#prepare(String)} get the full SQL text every time
+     */
+    boolean isPrepareSupported() {
+        return prepareSupported;
+    }
+
+    /**
+     * @return whether statement may be prepared right now, otherwise it is sent as the full SQL text
+     */
+    boolean canPrepare() {
+        return prepareSupported && !batchOpen;
+    }
+
+    void setBatchOpen(boolean batchOpen) {
+        this.batchOpen = batchOpen;
     }
 
     @Override
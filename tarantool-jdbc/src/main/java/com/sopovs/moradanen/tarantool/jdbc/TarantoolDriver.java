@@ -1,6 +1,7 @@
 package com.sopovs.moradanen.tarantool.jdbc;
 
 import com.sopovs.moradanen.tarantool.TarantoolClientImpl;
+import com.sopovs.moradanen.tarantool.TarantoolConfig;
 import com.sopovs.moradanen.tarantool.core.Nullable;
 
 import java.sql.*;
@@ -10,6 +11,7 @@ import java.util.logging.Logger;
 public class TarantoolDriver implements Driver {
 
     private static final String JDBC_TARANTOOL = "jdbc:tarantool://";
+    private static final String JDBC_TARANTOOL_UNIX = "jdbc:tarantool:unix:";
 
     static {
         try {
@@ -26,6 +28,12 @@ public class TarantoolDriver implements Driver {
             return null;
         }
         Properties props = parseProperties(url, info);
+        String socket = props.getProperty("socket");
+        if (socket != null) {
+            return new TarantoolConnection(new TarantoolClientImpl(
+                    new TarantoolConfig(null, 0, props.getProperty("user"), props.getProperty("password"))
+                            .withUnixSocket(socket)));
+        }
         return new TarantoolConnection(
                 new TarantoolClientImpl(props.getProperty("host"), Integer.parseInt(props.getProperty("port", "3301")),
                         props.getProperty("user"), props.getProperty("password")));
@@ -39,12 +47,21 @@ public class TarantoolDriver implements Driver {
         DriverPropertyInfo port = new DriverPropertyInfo("port", props.getProperty("port", "3301"));
         port.required = true;
         return new DriverPropertyInfo[]{host, port, new DriverPropertyInfo("user", props.getProperty("user")),
-                new DriverPropertyInfo("password", props.getProperty("password"))};
+                new DriverPropertyInfo("password", props.getProperty("password")),
+                new DriverPropertyInfo("socket", props.getProperty("socket"))};
     }
 
     private Properties parseProperties(String url, Properties info) throws SQLException {
         Properties result = new Properties(info);
-        if (acceptsURL(url)) {
+        if (url.startsWith(JDBC_TARANTOOL_UNIX)) {
+            String urlValue = url.substring(JDBC_TARANTOOL_UNIX.length());
+            if (urlValue.contains("?")) {
+                result.put("socket", urlValue.substring(0, urlValue.indexOf('?')));
+                parseParameters(urlValue.substring(urlValue.indexOf('?') + 1), result);
+            } else {
+                result.put("socket", urlValue);
+            }
+        } else if (acceptsURL(url)) {
             String urlValue = url.substring(JDBC_TARANTOOL.length());
             if (urlValue.contains("?")) {
                 parseHostPort(urlValue.substring(0, urlValue.indexOf('?')), result);
@@ -79,7 +96,7 @@ public class TarantoolDriver implements Driver {
 
     @Override
     public boolean acceptsURL(String url) {
-        return url.startsWith(JDBC_TARANTOOL);
+        return url.startsWith(JDBC_TARANTOOL) || url.startsWith(JDBC_TARANTOOL_UNIX);
     }
 
     @Override
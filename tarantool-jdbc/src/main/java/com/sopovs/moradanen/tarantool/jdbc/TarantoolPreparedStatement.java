@@ -31,7 +31,19 @@ public class TarantoolPreparedStatement extends TarantoolStatement implements Pr
 
     private void executeAndSetParameters() throws SQLException {
         checkClosed();
-        client.sql(sql);
+        TarantoolConnection connection = getConnection();
+        if (connection.canPrepare()) {
+            // lookup in the connection statement cache, the statement is prepared on the first use only
+            client.sql(client.prepare(sql));
+        } else {
+            // statement can not be prepared in the middle of a batch, but may already be
+            Long statementId = connection.isPrepareSupported() ? client.getCachedStatementId(sql) : null;
+            if (statementId != null) {
+                client.sql(statementId);
+            } else {
+                client.sql(sql);
+            }
+        }
         for (int i = 0; i < parameters.size(); i++) {
             requireParameter(parameters.get(i), i).set(client);
         }
@@ -269,6 +281,7 @@ public class TarantoolPreparedStatement extends TarantoolStatement implements Pr
     public void addBatch() throws SQLException {
         executeAndSetParameters();
         client.addBatch();
+        getConnection().setBatchOpen(true);
     }
 
     @Override
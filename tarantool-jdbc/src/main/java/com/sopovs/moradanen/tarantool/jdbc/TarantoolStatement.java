@@ -184,7 +184,11 @@ public class TarantoolStatement implements Statement {
     @Override
     public int[] executeBatch() throws SQLException {
         checkClosed();
-        return client.executeBatchUpdate();
+        try {
+            return client.executeBatchUpdate();
+        } finally {
+            connection.setBatchOpen(false);
+        }
     }
 
     @Override
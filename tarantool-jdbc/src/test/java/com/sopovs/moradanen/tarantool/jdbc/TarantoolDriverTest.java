@@ -7,6 +7,8 @@ import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 class TarantoolDriverTest {
@@ -27,4 +29,22 @@ class TarantoolDriverTest {
         assertEquals("password", props[3].name);
         assertEquals("bar", props[3].value);
     }
+
+    @Test
+    void testUnixUrlParsing() throws SQLException {
+        TarantoolDriver driver = new TarantoolDriver();
+        String url = "jdbc:tarantool:unix:/var/run/tarantool/tarantool.sock?user=foo&password=bar";
+        assertTrue(driver.acceptsURL(url));
+        DriverPropertyInfo[] props = driver.getPropertyInfo(url, null);
+        assertNull(props[0].value);
+
+        assertEquals("user", props[2].name);
+        assertEquals("foo", props[2].value);
+
+        assertEquals("password", props[3].name);
+        assertEquals("bar", props[3].value);
+
+        assertEquals("socket", props[4].name);
+        assertEquals("/var/run/tarantool/tarantool.sock", props[4].value);
+    }
 }
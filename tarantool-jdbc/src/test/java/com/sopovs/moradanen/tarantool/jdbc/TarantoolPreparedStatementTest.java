@@ -0,0 +1,181 @@
+package com.sopovs.moradanen.tarantool.jdbc;
+
+import com.sopovs.moradanen.tarantool.TarantoolClient;
+import com.sopovs.moradanen.tarantool.TarantoolClientImpl;
+import com.sopovs.moradanen.tarantool.core.TarantoolException;
+import com.sopovs.moradanen.tarantool.core.Util;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sopovs.moradanen.tarantool.test.TestUtil.getEnvTarantoolVersion;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TarantoolPreparedStatementTest {
+
+    @BeforeAll
+    static void setup() {
+        assumeTrue(Util.isVersionAtLeast(getEnvTarantoolVersion(), 2, 3));
+    }
+
+    @Test
+    void testServerPrepared() throws SQLException {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             TarantoolConnection con = new TarantoolConnection(client);
+             TarantoolStatement st = con.createStatement()) {
+            assertTrue(con.isPrepareSupported());
+            st.executeUpdate("CREATE TABLE TABLE1 (COLUMN1 INTEGER PRIMARY KEY, COLUMN2 VARCHAR(100))");
+
+            try (TarantoolPreparedStatement pst = con.prepareStatement("INSERT INTO TABLE1 VALUES(?,?)")) {
+                for (int i = 0; i < 3; i++) {
+                    pst.setInt(1, i);
+                    pst.setString(2, "A" + i);
+                    assertEquals(1, pst.executeUpdate());
+                }
+            }
+
+            try (TarantoolPreparedStatement pst = con.prepareStatement("SELECT * FROM TABLE1")) {
+                ResultSet res = pst.executeQuery();
+                for (int i = 0; i < 3; i++) {
+                    assertTrue(res.next());
+                    assertEquals(i, res.getInt("COLUMN1"));
+                    assertEquals("A" + i, res.getString("COLUMN2"));
+                }
+                assertFalse(res.next());
+            }
+
+            st.executeUpdate("DROP TABLE TABLE1");
+        }
+    }
+
+    @Test
+    void testClientWithoutPrepare() throws SQLException {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             TarantoolConnection con = new TarantoolConnection(withoutPrepare(client));
+             TarantoolStatement st = con.createStatement()) {
+            assertFalse(con.isPrepareSupported());
+            st.executeUpdate("CREATE TABLE TABLE1 (COLUMN1 INTEGER PRIMARY KEY, COLUMN2 VARCHAR(100))");
+
+            try (TarantoolPreparedStatement pst = con.prepareStatement("INSERT INTO TABLE1 VALUES(?,?)")) {
+                pst.setInt(1, 1);
+                pst.setString(2, "A1");
+                assertEquals(1, pst.executeUpdate());
+            }
+
+            try (TarantoolPreparedStatement pst = con.prepareStatement("SELECT COLUMN2 FROM TABLE1")) {
+                ResultSet res = pst.executeQuery();
+                assertTrue(res.next());
+                assertEquals("A1", res.getString(1));
+                assertFalse(res.next());
+            }
+
+            st.executeUpdate("DROP TABLE TABLE1");
+        }
+    }
+
+    /**
+     * @return client that only has the default {@link TarantoolClient#prepare(String)}, like the ones outside of driver
+     */
+    private static TarantoolClient withoutPrepare(TarantoolClient client) {
+        return (TarantoolClient) Proxy.newProxyInstance(TarantoolClient.class.getClassLoader(),
+                new Class<?>[]{TarantoolClient.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isPrepareSupported":
+                            return false;
+                        case "prepare":
+                            throw new TarantoolException("Prepared statements are not supported");
+                        default:
+                            try {
+                                return method.invoke(client, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+
+    @Test
+    void testCachedStatementInOpenBatch() throws SQLException {
+        List<Object> sent = new ArrayList<>();
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             TarantoolConnection con = new TarantoolConnection(recordingSql(client, sent));
+             TarantoolStatement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE TABLE1 (COLUMN1 INTEGER PRIMARY KEY, COLUMN2 VARCHAR(100))");
+
+            try (TarantoolPreparedStatement pst = con.prepareStatement("INSERT INTO TABLE1 VALUES(?,?)")) {
+                pst.setInt(1, 0);
+                pst.setString(2, "A0");
+                assertEquals(1, pst.executeUpdate());
+                sent.clear();
+                for (int i = 1; i <= 3; i++) {
+                    pst.setInt(1, i);
+                    pst.setString(2, "A" + i);
+                    pst.addBatch();
+                }
+                assertArrayEquals(new int[]{1, 1, 1}, pst.executeBatch());
+            }
+            // every row of the batch is sent with the id of the statement prepared by the first execution
+            assertEquals(3, sent.size());
+            for (Object query : sent) {
+                assertTrue(query instanceof Long);
+            }
+
+            st.executeUpdate("DROP TABLE TABLE1");
+        }
+    }
+
+    /**
+     * @return client that adds arguments of every {@code sql} call to {@code sent}
+     */
+    private static TarantoolClient recordingSql(TarantoolClient client, List<Object> sent) {
+        return (TarantoolClient) Proxy.newProxyInstance(TarantoolClient.class.getClassLoader(),
+                new Class<?>[]{TarantoolClient.class}, (proxy, method, args) -> {
+                    if ("sql".equals(method.getName())) {
+                        sent.add(args[0]);
+                    }
+                    try {
+                        return method.invoke(client, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    void testNewStatementInOpenBatch() throws SQLException {
+        try (TarantoolClient client = new TarantoolClientImpl("localhost", "admin", "javapass");
+             TarantoolConnection con = new TarantoolConnection(client);
+             TarantoolStatement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE TABLE1 (COLUMN1 INTEGER PRIMARY KEY, COLUMN2 VARCHAR(100))");
+
+            try (TarantoolPreparedStatement first = con.prepareStatement("INSERT INTO TABLE1 VALUES(?,?)");
+                 TarantoolPreparedStatement second =
+                         con.prepareStatement("INSERT INTO TABLE1 (COLUMN2, COLUMN1) VALUES(?,?)")) {
+                first.setInt(1, 1);
+                first.setString(2, "A1");
+                first.addBatch();
+                // not executed before, so it is not among prepared statements of the connection
+                second.setString(1, "A2");
+                second.setInt(2, 2);
+                second.addBatch();
+                first.setInt(1, 3);
+                first.setString(2, "A3");
+                first.addBatch();
+                assertArrayEquals(new int[]{1, 1, 1}, second.executeBatch());
+            }
+
+            ResultSet res = st.executeQuery("SELECT COUNT(*) FROM TABLE1");
+            assertTrue(res.next());
+            assertEquals(3, res.getInt(1));
+
+            st.executeUpdate("DROP TABLE TABLE1");
+        }
+    }
+}
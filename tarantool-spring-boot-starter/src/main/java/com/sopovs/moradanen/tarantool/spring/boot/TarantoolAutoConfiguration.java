@@ -2,6 +2,7 @@ package com.sopovs.moradanen.tarantool.spring.boot;
 
 import com.sopovs.moradanen.tarantool.TarantoolClientSource;
 import com.sopovs.moradanen.tarantool.TarantoolConfig;
+import com.sopovs.moradanen.tarantool.TarantoolPoolConfig;
 import com.sopovs.moradanen.tarantool.TarantoolPooledClientSource;
 import com.sopovs.moradanen.tarantool.TarantoolTemplate;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -25,7 +26,18 @@ public class TarantoolAutoConfiguration {
     public TarantoolClientSource tarantoolClientSource() {
         TarantoolConfig config = new TarantoolConfig(properties.getHost(), properties.getPort(),
                 properties.getUsername(), properties.getPassword());
-        return clientSource = new TarantoolPooledClientSource(config, properties.getPoolSize());
+        TarantoolPoolConfig poolConfig = new TarantoolPoolConfig(properties.getPoolSize());
+        if (properties.getMaxIdle() != null) {
+            poolConfig = poolConfig.withMaxIdle(properties.getMaxIdle());
+        }
+        poolConfig = poolConfig.withMinIdle(properties.getMinIdle());
+        if (properties.getMaxIdleTime() != null) {
+            poolConfig = poolConfig.withMaxIdleTime((int) properties.getMaxIdleTime().toMillis());
+        }
+        if (properties.getMaxLifetime() != null) {
+            poolConfig = poolConfig.withMaxLifetime((int) properties.getMaxLifetime().toMillis());
+        }
+        return clientSource = new TarantoolPooledClientSource(config, poolConfig);
     }
 
     @Bean
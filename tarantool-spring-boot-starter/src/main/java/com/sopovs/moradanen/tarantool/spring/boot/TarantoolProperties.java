@@ -2,6 +2,8 @@ package com.sopovs.moradanen.tarantool.spring.boot;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "spring.tarantool")
 public class TarantoolProperties {
     /**
@@ -38,6 +40,26 @@ public class TarantoolProperties {
     // application
     private int poolSize = 10;
 
+    /**
+     * Idle clients created in advance and kept from eviction by max idle time.
+     */
+    private int minIdle;
+
+    /**
+     * Idle clients kept in the pool, pool size if not set.
+     */
+    private Integer maxIdle;
+
+    /**
+     * Clients idle for longer are closed, unless only min idle ones are left.
+     */
+    private Duration maxIdleTime;
+
+    /**
+     * Clients living for longer are closed.
+     */
+    private Duration maxLifetime;
+
     public String getHost() {
         return host;
     }
@@ -77,4 +99,36 @@ public class TarantoolProperties {
     public void setPoolSize(int poolSize) {
         this.poolSize = poolSize;
     }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public Integer getMaxIdle() {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(Integer maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public Duration getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public void setMaxIdleTime(Duration maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    public Duration getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(Duration maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
 }